@@ -1,148 +1,811 @@
-import java.util.List;
-
-public class AIPlayer {
-    public enum Algorithm { MINIMAX, ALPHA_BETA }
-
-    final Algorithm algorithm;
-    final int depth;
-    long nodesChecked;
-    long moveTimeMs;
-    long totalNodesThisGame;
-    long totalTimeThisGame;
-    int movesThisGame;
-
-    public AIPlayer(Algorithm algo, int searchDepth) {
-        this.algorithm = algo;
-        this.depth = searchDepth;
-    }
-
-    public long getNodesChecked() { return nodesChecked; }
-    public long getMoveTimeMs() { return moveTimeMs; }
-    public long getTotalNodesThisGame() { return totalNodesThisGame; }
-    public long getAvgTimeThisGame() { return movesThisGame == 0 ? 0 : totalTimeThisGame / movesThisGame; }
-
-    public void resetGameStats() {
-        totalNodesThisGame = 0;
-        totalTimeThisGame = 0;
-        movesThisGame = 0;
-    }
-
-    public Move findBestMove(GameState currentState) {
-        if (currentState.isGameOver()) {
-            return null;
-        }
-
-        nodesChecked = 0;
-        long startTime = System.nanoTime();
-        Move chosenMove = null;
-        int bestScore = Integer.MIN_VALUE;
-
-        List<Move> possibleMoves = GameLogic.getValidMoves(currentState);
-        if (possibleMoves.isEmpty()) {
-            return null;
-        }
-
-        for (Move move : possibleMoves) {
-            GameState nextState = currentState.clone();
-            nextState.makeMove(move.getDivisor());
-            int score;
-            boolean isOpponentTurn = false;
-            if (algorithm == Algorithm.MINIMAX) {
-                score = minimax(nextState, depth - 1, isOpponentTurn);
-            } else {
-                score = alphaBeta(nextState, depth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, isOpponentTurn);
-            }
-            if (score > bestScore) {
-                bestScore = score;
-                chosenMove = move;
-            }
-        }
-
-        moveTimeMs = (System.nanoTime() - startTime) / 1_000_000;
-        totalNodesThisGame += nodesChecked;
-        totalTimeThisGame += moveTimeMs;
-        movesThisGame++;
-
-        if (chosenMove == null && !possibleMoves.isEmpty()) {
-            System.err.println("AI Warning: No preferred move? Selecting first.");
-            chosenMove = possibleMoves.get(0);
-        }
-        return chosenMove;
-    }
-
-    private int minimax(GameState state, int currentDepth, boolean isMaximizingPlayer) {
-        nodesChecked++;
-        if (currentDepth == 0 || state.isGameOver()) return evaluate(state);
-        List<Move> possibleMoves = GameLogic.getValidMoves(state);
-        if (possibleMoves.isEmpty()) return evaluate(state);
-
-        if (isMaximizingPlayer) {
-            int maxScore = Integer.MIN_VALUE;
-            for (Move move : possibleMoves) {
-                GameState nextState = state.clone(); nextState.makeMove(move.getDivisor());
-                maxScore = Math.max(maxScore, minimax(nextState, currentDepth - 1, false));
-            }
-            return maxScore;
-        } else {
-            int minScore = Integer.MAX_VALUE;
-            for (Move move : possibleMoves) {
-                GameState nextState = state.clone(); nextState.makeMove(move.getDivisor());
-                minScore = Math.min(minScore, minimax(nextState, currentDepth - 1, true));
-            }
-            return minScore;
-        }
-    }
-
-    private int alphaBeta(GameState state, int currentDepth, int alpha, int beta, boolean isMaximizingPlayer) {
-        nodesChecked++;
-        if (currentDepth == 0 || state.isGameOver()) return evaluate(state);
-        List<Move> possibleMoves = GameLogic.getValidMoves(state);
-        if (possibleMoves.isEmpty()) return evaluate(state);
-
-        if (isMaximizingPlayer) {
-            int maxScore = Integer.MIN_VALUE;
-            for (Move move : possibleMoves) {
-                GameState nextState = state.clone(); nextState.makeMove(move.getDivisor());
-                int score = alphaBeta(nextState, currentDepth - 1, alpha, beta, false);
-                maxScore = Math.max(maxScore, score);
-                alpha = Math.max(alpha, score);
-                if (beta <= alpha) break;
-            }
-            return maxScore;
-        } else {
-            int minScore = Integer.MAX_VALUE;
-            for (Move move : possibleMoves) {
-                GameState nextState = state.clone(); nextState.makeMove(move.getDivisor());
-                int score = alphaBeta(nextState, currentDepth - 1, alpha, beta, true);
-                minScore = Math.min(minScore, score);
-                beta = Math.min(beta, score);
-                if (beta <= alpha) break;
-            }
-            return minScore;
-        }
-    }
-
-    private int evaluate(GameState state) {
-        if (state.isGameOver()) {
-            int winner = GameLogic.checkWinner(state);
-            int scoreDiff = state.compScore - state.playerScore;
-            if (winner == -1) return 10000 + scoreDiff;
-            if (winner == 1) return -10000 + scoreDiff;
-            return 0;
-        }
-
-        int scoreDiff = state.compScore - state.playerScore;
-        int endProximity = Math.max(0, 100 - (state.currentNum - GameLogic.GAME_END_THRESHOLD));
-        int proxFactor = 0;
-        if (scoreDiff < 0) proxFactor = -endProximity / 5;
-        else if (scoreDiff > 0) proxFactor = endProximity / 10;
-        boolean canDiv2 = state.isMoveValid(2);
-        boolean canDiv3 = state.isMoveValid(3);
-        int optsBonus = (canDiv2 && canDiv3) ? 3 : 0;
-        int stratBonus = 0;
-        if (canDiv3) stratBonus += 1;
-        if (canDiv2 && !canDiv3) stratBonus -= 1;
-
-        return scoreDiff + proxFactor + optsBonus + stratBonus;
-    }
-}
\ No newline at end of file
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import jdk.jfr.FlightRecorder;
+
+public class AIPlayer {
+    public enum Algorithm { MINIMAX, ALPHA_BETA, EXACT, PVS, MTDF, MCTS }
+
+    // Snapshot of a running search, published after every completed depth.
+    public static class SearchProgress {
+        final int depth;
+        final Move bestMove;
+        final int score;
+        final long nodes;
+        final long nodesPerSecond;
+
+        SearchProgress(int depth, Move bestMove, int score, long nodes, long nodesPerSecond) {
+            this.depth = depth;
+            this.bestMove = bestMove;
+            this.score = score;
+            this.nodes = nodes;
+            this.nodesPerSecond = nodesPerSecond;
+        }
+
+        public int getDepth() { return depth; }
+        public Move getBestMove() { return bestMove; }
+        public int getScore() { return score; }
+        public long getNodes() { return nodes; }
+        public long getNodesPerSecond() { return nodesPerSecond; }
+    }
+
+    public interface SearchListener {
+        void onProgress(SearchProgress progress);
+    }
+
+    static final int DEFAULT_TT_ENTRIES = 1 << 16;
+    static final int MAX_ITERATIVE_DEPTH = 64;
+    static final int ASPIRATION_WINDOW = 16;
+    // MCTS reads the engine depth as its playout budget in thousands, so MCTS:6 makes 6000 playouts a move.
+    static final int MCTS_PLAYOUTS_PER_DEPTH = 1000;
+    static final int MCTS_PROGRESS_SLICES = 8;
+    static final long MCTS_DEADLINE_SLICE_PLAYOUTS = 1 << 14;
+    private static final int DEADLINE_POLL_MASK = 1023;
+    private static final int BOTH_MOVES = PackedState.MOVE_DIV2 | PackedState.MOVE_DIV3;
+
+    final Algorithm algorithm;
+    final int depth;
+    final TranspositionStore table;
+    final boolean ownsTable;
+    final LatticeSolver solver;
+    ParallelSearch parallelSearch;
+    MonteCarloSearch monteCarlo;
+    OpeningBook openingBook;
+    boolean lastMoveFromBook;
+    long nodesChecked;
+    long ttHits;
+    long ttMisses;
+    int depthReached;
+    long deadlineNanos;
+    boolean searchAborted;
+    CancellationToken cancellation;
+    SearchListener listener;
+    long searchStartNanos;
+    long moveTimeMs;
+    long moveTimeNanos;
+    int rootSearchDepth;
+    int lastRootScore;
+    boolean hasLastRootScore;
+    final int[] killerMoves = new int[MAX_ITERATIVE_DEPTH + 1];
+    final int[][] historyScores = new int[2][4];
+    final SearchStats stats = new SearchStats();
+    boolean detailedTiming;
+    EngineMetrics metrics;
+    long totalNodesThisGame;
+    long totalTimeThisGame;
+    int movesThisGame;
+    boolean treeReuse = true;
+    long keptPlayouts;
+    EvalWeights evalWeights = EvalWeights.DEFAULT;
+    Random tieBreaks;
+
+    public AIPlayer(Algorithm algo, int searchDepth) {
+        this(algo, searchDepth, DEFAULT_TT_ENTRIES);
+    }
+
+    public AIPlayer(Algorithm algo, int searchDepth, int ttEntries) {
+        this(algo, searchDepth, ttEntries > 0 && usesTable(algo) ? new TranspositionTable(ttEntries) : null, true);
+    }
+
+    // Searches through a table other engines may be using at the same time, e.g. a SharedTranspositionTable.
+    // resetGameStats leaves a shared table alone; clear it between searches if a fresh table is wanted.
+    public AIPlayer(Algorithm algo, int searchDepth, TranspositionStore sharedTable) {
+        this(algo, searchDepth, usesTable(algo) ? sharedTable : null, false);
+    }
+
+    private static boolean usesTable(Algorithm algo) {
+        return algo != Algorithm.EXACT && algo != Algorithm.MCTS;
+    }
+
+    private AIPlayer(Algorithm algo, int searchDepth, TranspositionStore table, boolean ownsTable) {
+        this.algorithm = algo;
+        this.depth = searchDepth;
+        this.table = table;
+        this.ownsTable = ownsTable;
+        this.solver = algo == Algorithm.EXACT ? new LatticeSolver() : null;
+        this.monteCarlo = algo == Algorithm.MCTS ? new MonteCarloSearch(1) : null;
+        this.rootSearchDepth = searchDepth;
+    }
+
+    public long getNodesChecked() { return nodesChecked; }
+    public long getTtHits() { return ttHits; }
+    public long getTtMisses() { return ttMisses; }
+    public long getMoveTimeMs() { return moveTimeMs; }
+    public long getMoveTimeNanos() { return moveTimeNanos; }
+    public SearchStats getSearchStats() { return stats; }
+    public int getDepthReached() { return depthReached; }
+    public long getNodesPerSecond() { return moveTimeNanos == 0 ? 0 : nodesChecked * 1_000_000_000L / moveTimeNanos; }
+    public int getParallelism() {
+        if (monteCarlo != null) return monteCarlo.getThreads();
+        return parallelSearch == null ? 1 : parallelSearch.getParallelism();
+    }
+    public boolean isLastMoveFromBook() { return lastMoveFromBook; }
+    public void setOpeningBook(OpeningBook book) { this.openingBook = book; }
+    // Times every evaluate call with System.nanoTime, which slows the search down noticeably.
+    public void setDetailedTiming(boolean enabled) { this.detailedTiming = enabled; }
+    public long getTotalNodesThisGame() { return totalNodesThisGame; }
+    public long getAvgTimeThisGame() { return movesThisGame == 0 ? 0 : totalTimeThisGame / movesThisGame; }
+    // Playouts of the last MCTS move that came from the previous move's tree rather than this search.
+    public long getKeptPlayouts() { return keptPlayouts; }
+    public boolean isTreeReuse() { return treeReuse; }
+
+    // On by default: within a game the engine's own table and the MCTS tree carry over from one move to
+    // the next. Off, every move starts cold, which is only useful to measure what reuse saves. A shared
+    // table is never cleared by the engine either way.
+    public void setTreeReuse(boolean enabled) { this.treeReuse = enabled; }
+    public EvalWeights getEvalWeights() { return evalWeights; }
+
+    // With a Random, root moves that score the same are picked by a coin flip instead of going to the
+    // smaller divisor, so a seeded Random plays a different but repeatable game. null restores the default.
+    // MCTS and book moves are unaffected.
+    public void setRandomTieBreaks(Random random) { this.tieBreaks = random; }
+
+    // Whether the same position always gets the same move, and so the same game the same outcome.
+    public boolean isDeterministic() {
+        return tieBreaks == null && (monteCarlo == null || monteCarlo.getThreads() == 1);
+    }
+
+    // Everything besides the position that decides this engine's moves, for keying cached results.
+    public String getConfiguration() {
+        StringBuilder sb = new StringBuilder(algorithm.name());
+        if (algorithm != Algorithm.EXACT) sb.append(':').append(depth);
+        sb.append('@').append(evalWeights.getVersion());
+        if (monteCarlo != null && monteCarlo.getRolloutCutoff() > 0) sb.append("/cutoff").append(monteCarlo.getRolloutCutoff());
+        if (openingBook != null) sb.append("/book");
+        return sb.toString();
+    }
+
+    // Scores from other weights do not mix with the old ones, so the engine's own table is cleared.
+    // A shared table must only be shared by engines using the same weights.
+    public void setEvalWeights(EvalWeights weights) {
+        this.evalWeights = weights;
+        if (table != null && ownsTable) table.clear();
+        if (parallelSearch != null) parallelSearch.setEvalWeights(weights);
+        if (monteCarlo != null) monteCarlo.setEvalWeights(weights);
+    }
+
+    // Publishes this engine's per-move metrics as a JMX MBean until unregisterMetrics() is called.
+    public void registerMetrics(String label) {
+        unregisterMetrics();
+        metrics = new EngineMetrics(algorithm, depth, label);
+        metrics.register();
+    }
+
+    public void unregisterMetrics() {
+        if (metrics != null) metrics.unregister();
+        metrics = null;
+    }
+
+    // More than one thread moves the tree searches onto a ForkJoinPool. An engine's own table is
+    // single-threaded and is not consulted by the parallel search; a shared table is used by every worker.
+    // MCTS instead runs tree-parallel playouts on that many threads.
+    public void setParallelism(int threads) {
+        if (monteCarlo != null) {
+            int cutoff = monteCarlo.getRolloutCutoff();
+            monteCarlo.shutdown();
+            monteCarlo = new MonteCarloSearch(Math.max(1, threads));
+            monteCarlo.setRolloutCutoff(cutoff);
+            monteCarlo.setEvalWeights(evalWeights);
+            return;
+        }
+        if (parallelSearch != null) parallelSearch.shutdown();
+        parallelSearch = threads > 1 && algorithm != Algorithm.EXACT
+                ? new ParallelSearch(algorithm, threads, ownsTable ? null : table) : null;
+        if (parallelSearch != null) parallelSearch.setEvalWeights(evalWeights);
+    }
+
+    // MCTS only: playouts stop after this many plies and take evaluate's verdict; 0 plays them out.
+    public void setRolloutCutoff(int plies) {
+        if (monteCarlo != null) monteCarlo.setRolloutCutoff(plies);
+    }
+
+    public void resetGameStats() {
+        totalNodesThisGame = 0;
+        totalTimeThisGame = 0;
+        movesThisGame = 0;
+        for (int[] scores : historyScores) Arrays.fill(scores, 0);
+        if (table != null && ownsTable) table.clear();
+        if (monteCarlo != null) monteCarlo.release();
+    }
+
+    public Move findBestMove(GameState currentState) {
+        return findBestMove(currentState, null);
+    }
+
+    // With a budget the search deepens one ply at a time until the deadline and returns the move
+    // from the deepest iteration that finished; without one it searches straight to the fixed depth.
+    public Move findBestMove(GameState currentState, Duration budget) {
+        return findBestMove(currentState, budget, null, null);
+    }
+
+    // A cancelled token stops the search like an expired budget. With a listener the search deepens
+    // one ply at a time even without a budget, up to the fixed depth, so that every depth can be reported.
+    public Move findBestMove(GameState currentState, Duration budget, CancellationToken cancellation,
+                             SearchListener listener) {
+        if (currentState.isGameOver()) {
+            return null;
+        }
+        this.cancellation = cancellation;
+        this.listener = listener;
+        try {
+            return search(currentState, budget);
+        } finally {
+            this.cancellation = null;
+            this.listener = null;
+        }
+    }
+
+    // The first SearchEvent sets up Flight Recorder's event machinery, which takes hundreds of
+    // milliseconds, so events are only created once Flight Recorder is running (from the command line
+    // or a later jcmd JFR.start).
+    private Move search(GameState currentState, Duration budget) {
+        SearchEvent event = FlightRecorder.isInitialized() ? new SearchEvent() : null;
+        if (event != null) event.begin();
+
+        nodesChecked = 0;
+        depthReached = 0;
+        searchAborted = false;
+        stats.reset();
+        Arrays.fill(killerMoves, 0);
+        hasLastRootScore = false;
+        ttHits = 0;
+        ttMisses = 0;
+        keptPlayouts = 0;
+        if (!treeReuse && table != null && ownsTable) table.clear();
+        long startTime = System.nanoTime();
+        searchStartNanos = startTime;
+
+        long rootState = PackedState.of(currentState);
+        int possibleMoves = PackedState.validMoves(rootState);
+        if (possibleMoves == 0) {
+            return null;
+        }
+
+        int bookMove = openingBook == null ? 0 : openingBook.lookup(rootState);
+        lastMoveFromBook = bookMove != 0 && (possibleMoves & PackedState.moveBit(bookMove)) != 0;
+        int chosenDivisor;
+        if (lastMoveFromBook) {
+            chosenDivisor = bookMove;
+        } else if (algorithm == Algorithm.MCTS) {
+            chosenDivisor = monteCarloRoot(rootState, budget == null ? 0 : startTime + budget.toNanos());
+        } else if (budget == null && listener == null || algorithm == Algorithm.EXACT) {
+            chosenDivisor = searchRoot(rootState, possibleMoves, depth, 0);
+            if (!searchAborted) {
+                depthReached = depth;
+                publishProgress(chosenDivisor);
+            }
+        } else if (budget == null) {
+            chosenDivisor = iterativeDeepening(rootState, possibleMoves, 0, depth);
+        } else {
+            chosenDivisor = iterativeDeepening(rootState, possibleMoves, startTime + budget.toNanos(),
+                    MAX_ITERATIVE_DEPTH);
+        }
+
+        moveTimeNanos = System.nanoTime() - startTime;
+        moveTimeMs = moveTimeNanos / 1_000_000;
+        totalNodesThisGame += nodesChecked;
+        totalTimeThisGame += moveTimeMs;
+        movesThisGame++;
+        if (metrics != null) {
+            metrics.recordMove(moveTimeNanos, nodesChecked, depthReached, lastMoveFromBook, searchAborted);
+        }
+
+        if (chosenDivisor == 0) {
+            if (!searchAborted) System.err.println("AI Warning: No preferred move? Selecting first.");
+            chosenDivisor = (possibleMoves & PackedState.MOVE_DIV2) != 0 ? 2 : 3;
+        }
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) commitEvent(event, rootState, chosenDivisor);
+        }
+        return Move.of(chosenDivisor);
+    }
+
+    private void commitEvent(SearchEvent event, long rootState, int divisor) {
+        event.algorithm = algorithm.name();
+        event.currentNum = PackedState.currentNum(rootState);
+        event.divisor = divisor;
+        event.fromBook = lastMoveFromBook;
+        event.score = lastMoveFromBook ? 0 : lastRootScore;
+        event.depthReached = depthReached;
+        event.nodes = nodesChecked;
+        event.nodesPerSecond = getNodesPerSecond();
+        event.branchingFactor = stats.getEffectiveBranchingFactor();
+        event.firstMoveCutoffs = stats.firstMoveCutoffs;
+        event.laterMoveCutoffs = stats.laterMoveCutoffs;
+        event.evaluations = stats.evaluations;
+        event.evaluateNanos = stats.evaluateNanos;
+        event.ttHits = getTtHits();
+        event.ttMisses = getTtMisses();
+        event.aborted = searchAborted;
+        event.commit();
+    }
+
+    // A deadline of 0 means no deadline.
+    private int iterativeDeepening(long rootState, int possibleMoves, long deadline, int depthLimit) {
+        int chosenDivisor = 0;
+        deadlineNanos = deadline;
+        // Each move strips one factor of 2 or 3, so no line is longer than v2 + v3 plies.
+        int maxDepth = Math.min(depthLimit, remainingPlies(PackedState.currentNum(rootState)));
+        try {
+            for (int searchDepth = 1; searchDepth <= maxDepth; searchDepth++) {
+                int divisor = searchRoot(rootState, possibleMoves, searchDepth, chosenDivisor);
+                if (searchAborted) break;
+                chosenDivisor = divisor;
+                depthReached = searchDepth;
+                publishProgress(divisor);
+                if (deadline != 0 && System.nanoTime() - deadline > 0) break;
+            }
+        } finally {
+            deadlineNanos = 0;
+        }
+        return chosenDivisor;
+    }
+
+    // Without a deadline the playout budget runs in slices when a listener wants progress; with one,
+    // in fixed-size slices until it passes. The score is the chosen move's expected result in percent.
+    private int monteCarloRoot(long rootState, long deadline) {
+        if (treeReuse) {
+            keptPlayouts = monteCarlo.reroot(rootState);
+        } else {
+            monteCarlo.start(rootState);
+        }
+        long limit = deadline == 0 ? (long) depth * MCTS_PLAYOUTS_PER_DEPTH : Long.MAX_VALUE;
+        long slice = deadline != 0 ? MCTS_DEADLINE_SLICE_PLAYOUTS
+                : listener == null ? limit : Math.max(1, limit / MCTS_PROGRESS_SLICES);
+        int chosenDivisor = 0;
+        while (true) {
+            boolean completed = monteCarlo.run(Math.min(limit, monteCarlo.getPlayouts() + slice), deadline, cancellation);
+            nodesChecked = monteCarlo.getNodes();
+            if (!completed) {
+                searchAborted = true;
+                break;
+            }
+            chosenDivisor = monteCarlo.bestMove();
+            depthReached = monteCarlo.getDepthReached();
+            lastRootScore = monteCarlo.bestScore();
+            hasLastRootScore = true;
+            publishProgress(chosenDivisor);
+            if (monteCarlo.getPlayouts() >= limit || deadline != 0 && System.nanoTime() - deadline > 0) break;
+        }
+        return chosenDivisor;
+    }
+
+    public long getPlayouts() { return monteCarlo == null ? 0 : monteCarlo.getPlayouts(); }
+
+    // Both root moves scored from the computer's side at the full depth, indexed by divisor - 2, with
+    // Integer.MIN_VALUE for an illegal one. Unlike the root search every move gets an exact value rather
+    // than a bound, so GameAnalyzer can compare the move played with the best one. Minimax-style
+    // algorithms only: MCTS scores are win rates.
+    public int[] scoreMoves(GameState currentState) {
+        if (algorithm == Algorithm.MCTS) throw new IllegalStateException("MCTS does not produce minimax scores");
+        nodesChecked = 0;
+        searchAborted = false;
+        stats.reset();
+        Arrays.fill(killerMoves, 0);
+        if (!treeReuse && table != null && ownsTable) table.clear();
+        rootSearchDepth = depth;
+
+        long rootState = PackedState.of(currentState);
+        int possibleMoves = PackedState.validMoves(rootState);
+        int[] scores = {Integer.MIN_VALUE, Integer.MIN_VALUE};
+        int[] parallelScores = null;
+        if (algorithm == Algorithm.EXACT) {
+            solver.prepare(rootState);
+        } else if (parallelSearch != null) {
+            parallelScores = parallelSearch.scoreRootMoves(rootState, possibleMoves, depth, deadlineNanos, cancellation);
+            nodesChecked += parallelSearch.getNodes();
+            if (parallelSearch.isAborted()) searchAborted = true;
+        }
+        for (int divisor = 2; divisor <= 3; divisor++) {
+            if ((possibleMoves & PackedState.moveBit(divisor)) == 0) continue;
+            long nextState = PackedState.makeMove(rootState, divisor);
+            int score;
+            if (parallelScores != null) {
+                score = parallelScores[divisor - 2];
+            } else if (algorithm == Algorithm.EXACT) {
+                score = solver.valueAfter(divisor);
+            } else if (algorithm == Algorithm.MINIMAX) {
+                score = minimax(nextState, depth - 1, false);
+            } else if (algorithm == Algorithm.ALPHA_BETA) {
+                score = alphaBeta(nextState, depth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+            } else {
+                score = pvs(nextState, depth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+            }
+            scores[divisor - 2] = score;
+        }
+        if (algorithm == Algorithm.EXACT) nodesChecked = solver.getStatesSolved();
+        return scores;
+    }
+
+    private void publishProgress(int divisor) {
+        if (listener == null || divisor == 0) return;
+        long elapsed = System.nanoTime() - searchStartNanos;
+        listener.onProgress(new SearchProgress(depthReached, Move.of(divisor), lastRootScore, nodesChecked,
+                elapsed == 0 ? 0 : nodesChecked * 1_000_000_000L / elapsed));
+    }
+
+    // A search with at least as many plies to go as are left in the game never stops at the depth limit,
+    // so its value is exact. Table entries are stored and probed at the smaller of the two, which lets
+    // such a solved entry answer any deeper search, including the next move's.
+    static int tableDepth(long state, int currentDepth) {
+        int num = PackedState.currentNum(state);
+        if (currentDepth <= Integer.numberOfTrailingZeros(num)) return currentDepth;
+        return Math.min(currentDepth, remainingPlies(num));
+    }
+
+    static int remainingPlies(int num) {
+        if (num <= 0) return 0;
+        int plies = Integer.numberOfTrailingZeros(num);
+        for (int rest = num >> plies; rest % 3 == 0; rest /= 3) plies++;
+        return plies;
+    }
+
+    // firstDivisor is searched first; ties still go to the smaller divisor so the order never changes the pick
+    // (unless ties are broken at random).
+    private int searchRoot(long rootState, int possibleMoves, int searchDepth, int firstDivisor) {
+        rootSearchDepth = searchDepth;
+        if ((algorithm == Algorithm.PVS || algorithm == Algorithm.MTDF) && parallelSearch == null) {
+            return searchRootWindowed(rootState, possibleMoves, searchDepth, firstDivisor);
+        }
+        int chosenDivisor = 0;
+        int bestScore = Integer.MIN_VALUE;
+
+        int[] parallelScores = null;
+        if (algorithm == Algorithm.EXACT) {
+            solver.prepare(rootState);
+        } else if (parallelSearch != null) {
+            parallelScores = parallelSearch.scoreRootMoves(rootState, possibleMoves, searchDepth, deadlineNanos, cancellation);
+            nodesChecked += parallelSearch.getNodes();
+            if (parallelSearch.isAborted()) searchAborted = true;
+        }
+        for (int k = 0; k < 2; k++) {
+            int divisor = firstDivisor == 3 ? 3 - k : 2 + k;
+            if ((possibleMoves & PackedState.moveBit(divisor)) == 0) continue;
+            long nextState = PackedState.makeMove(rootState, divisor);
+            int score;
+            boolean isOpponentTurn = false;
+            if (parallelScores != null) {
+                score = parallelScores[divisor - 2];
+            } else if (algorithm == Algorithm.MINIMAX) {
+                score = minimax(nextState, searchDepth - 1, isOpponentTurn);
+            } else if (algorithm == Algorithm.EXACT) {
+                score = solver.valueAfter(divisor);
+            } else {
+                score = alphaBeta(nextState, searchDepth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, isOpponentTurn);
+            }
+            if (prefers(score, divisor, bestScore, chosenDivisor)) {
+                bestScore = score;
+                chosenDivisor = divisor;
+            }
+        }
+        if (algorithm == Algorithm.EXACT) nodesChecked = solver.getStatesSolved();
+        if (!searchAborted) {
+            lastRootScore = bestScore;
+            hasLastRootScore = true;
+        }
+        return chosenDivisor;
+    }
+
+    // Within iterative deepening the first root move gets an aspiration window around the previous
+    // iteration's score, which MTD(f) also uses as its first guess. Later moves only have to show they
+    // beat the best so far, so they start with a null window at that score and get an exact value only
+    // when they do.
+    private int searchRootWindowed(long rootState, int possibleMoves, int searchDepth, int firstDivisor) {
+        int chosenDivisor = 0;
+        int bestScore = Integer.MIN_VALUE;
+        int guess = hasLastRootScore ? lastRootScore : evalWeights.evaluate(rootState);
+
+        for (int k = 0; k < 2; k++) {
+            int divisor = firstDivisor == 3 ? 3 - k : 2 + k;
+            if ((possibleMoves & PackedState.moveBit(divisor)) == 0) continue;
+            long nextState = PackedState.makeMove(rootState, divisor);
+            int score;
+            if (isLeaf(nextState, searchDepth - 1)) {
+                score = pvs(nextState, searchDepth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+            } else if (chosenDivisor == 0) {
+                if (algorithm == Algorithm.MTDF) {
+                    score = mtdf(nextState, searchDepth - 1, guess);
+                } else if (hasLastRootScore) {
+                    score = aspirationSearch(nextState, searchDepth - 1, guess);
+                } else {
+                    score = pvs(nextState, searchDepth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+                }
+            } else {
+                // A tie needs an exact score to be noticed when it might win.
+                int bound = divisor < chosenDivisor || tieBreaks != null ? bestScore - 1 : bestScore;
+                score = pvs(nextState, searchDepth - 1, bound, bound + 1, false);
+                if (score > bound) {
+                    score = algorithm == Algorithm.MTDF
+                            ? mtdf(nextState, searchDepth - 1, score)
+                            : pvs(nextState, searchDepth - 1, bound, Integer.MAX_VALUE, false);
+                }
+            }
+            if (prefers(score, divisor, bestScore, chosenDivisor)) {
+                bestScore = score;
+                chosenDivisor = divisor;
+            }
+        }
+        if (!searchAborted) {
+            lastRootScore = bestScore;
+            hasLastRootScore = true;
+        }
+        return chosenDivisor;
+    }
+
+    private boolean prefers(int score, int divisor, int bestScore, int chosenDivisor) {
+        if (score != bestScore || chosenDivisor == 0) return score > bestScore;
+        return tieBreaks != null ? tieBreaks.nextBoolean() : divisor < chosenDivisor;
+    }
+
+    // A leaf costs one evaluation whatever the window, so probing it with a null window first only adds nodes.
+    private static boolean isLeaf(long state, int currentDepth) {
+        return currentDepth == 0 || PackedState.isGameOver(state);
+    }
+
+    private int aspirationSearch(long state, int currentDepth, int guess) {
+        int alpha = guess - ASPIRATION_WINDOW;
+        int beta = guess + ASPIRATION_WINDOW;
+        int score = pvs(state, currentDepth, alpha, beta, false);
+        if (score <= alpha || score >= beta) {
+            score = pvs(state, currentDepth, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+        }
+        return score;
+    }
+
+    // MTD(f): converge on the minimax value with null-window searches that lean on the transposition table.
+    private int mtdf(long state, int currentDepth, int guess) {
+        int score = guess;
+        int lower = Integer.MIN_VALUE;
+        int upper = Integer.MAX_VALUE;
+        while (lower < upper && !searchAborted) {
+            int beta = score == lower ? score + 1 : score;
+            score = pvs(state, currentDepth, beta - 1, beta, false);
+            if (score < beta) upper = score; else lower = score;
+        }
+        return score;
+    }
+
+    // A cancelled token or an interrupted thread stops the search too, so a cancelled search does not
+    // keep a core busy.
+    private boolean isOutOfTime() {
+        if ((nodesChecked & DEADLINE_POLL_MASK) == 0 && !searchAborted
+                && (cancellation != null && cancellation.isCancelled() || Thread.currentThread().isInterrupted()
+                || deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0)) {
+            searchAborted = true;
+        }
+        return searchAborted;
+    }
+
+    int minimax(long state, int currentDepth, boolean isMaximizingPlayer) {
+        nodesChecked++;
+        stats.nodesPerPly[rootSearchDepth - currentDepth]++;
+        if (isOutOfTime()) return 0;
+        if (currentDepth == 0 || PackedState.isGameOver(state)) return evaluateLeaf(state);
+        int possibleMoves = PackedState.validMoves(state);
+        if (possibleMoves == 0) return evaluateLeaf(state);
+
+        long key = 0;
+        int ttDepth = 0;
+        if (table != null) {
+            key = TranspositionTable.key(state, isMaximizingPlayer);
+            ttDepth = tableDepth(state, currentDepth);
+            int cached = table.probe(key, ttDepth, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            if (cached != TranspositionTable.NO_VALUE) {
+                ttHits++;
+                return cached;
+            }
+            ttMisses++;
+        }
+
+        int bestScore;
+        int bestDivisor = 0;
+        if (isMaximizingPlayer) {
+            bestScore = Integer.MIN_VALUE;
+            for (int divisor = 2; divisor <= 3; divisor++) {
+                if ((possibleMoves & PackedState.moveBit(divisor)) == 0) continue;
+                int score = minimax(PackedState.makeMove(state, divisor), currentDepth - 1, false);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestDivisor = divisor;
+                }
+            }
+        } else {
+            bestScore = Integer.MAX_VALUE;
+            for (int divisor = 2; divisor <= 3; divisor++) {
+                if ((possibleMoves & PackedState.moveBit(divisor)) == 0) continue;
+                int score = minimax(PackedState.makeMove(state, divisor), currentDepth - 1, true);
+                if (score < bestScore) {
+                    bestScore = score;
+                    bestDivisor = divisor;
+                }
+            }
+        }
+        if (table != null && !searchAborted) {
+            table.store(key, ttDepth, bestScore, Integer.MIN_VALUE, Integer.MAX_VALUE, bestDivisor);
+        }
+        return bestScore;
+    }
+
+    int alphaBeta(long state, int currentDepth, int alpha, int beta, boolean isMaximizingPlayer) {
+        nodesChecked++;
+        stats.nodesPerPly[rootSearchDepth - currentDepth]++;
+        if (isOutOfTime()) return 0;
+        if (currentDepth == 0 || PackedState.isGameOver(state)) return evaluateLeaf(state);
+        int possibleMoves = PackedState.validMoves(state);
+        if (possibleMoves == 0) return evaluateLeaf(state);
+
+        long key = 0;
+        int ttDepth = 0;
+        int alphaOrig = alpha, betaOrig = beta;
+        int firstDivisor = 0;
+        if (table != null) {
+            key = TranspositionTable.key(state, isMaximizingPlayer);
+            ttDepth = tableDepth(state, currentDepth);
+            int cached = table.probe(key, ttDepth, alpha, beta);
+            if (cached != TranspositionTable.NO_VALUE) {
+                ttHits++;
+                return cached;
+            }
+            ttMisses++;
+            firstDivisor = table.bestMove(key);
+        }
+
+        int bestScore;
+        int bestDivisor = 0;
+        if (isMaximizingPlayer) {
+            bestScore = Integer.MIN_VALUE;
+            for (int k = 0; k < 2; k++) {
+                int divisor = firstDivisor == 3 ? 3 - k : 2 + k;
+                if ((possibleMoves & PackedState.moveBit(divisor)) == 0) continue;
+                int score = alphaBeta(PackedState.makeMove(state, divisor), currentDepth - 1, alpha, beta, false);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestDivisor = divisor;
+                }
+                alpha = Math.max(alpha, score);
+                if (beta <= alpha) {
+                    recordCutoff(k == 0 || possibleMoves != BOTH_MOVES);
+                    break;
+                }
+            }
+        } else {
+            bestScore = Integer.MAX_VALUE;
+            for (int k = 0; k < 2; k++) {
+                int divisor = firstDivisor == 3 ? 3 - k : 2 + k;
+                if ((possibleMoves & PackedState.moveBit(divisor)) == 0) continue;
+                int score = alphaBeta(PackedState.makeMove(state, divisor), currentDepth - 1, alpha, beta, true);
+                if (score < bestScore) {
+                    bestScore = score;
+                    bestDivisor = divisor;
+                }
+                beta = Math.min(beta, score);
+                if (beta <= alpha) {
+                    recordCutoff(k == 0 || possibleMoves != BOTH_MOVES);
+                    break;
+                }
+            }
+        }
+        if (table != null && !searchAborted) table.store(key, ttDepth, bestScore, alphaOrig, betaOrig, bestDivisor);
+        return bestScore;
+    }
+
+    int pvs(long state, int currentDepth, int alpha, int beta, boolean isMaximizingPlayer) {
+        nodesChecked++;
+        stats.nodesPerPly[rootSearchDepth - currentDepth]++;
+        if (isOutOfTime()) return 0;
+        if (currentDepth == 0 || PackedState.isGameOver(state)) return evaluateLeaf(state);
+        int possibleMoves = PackedState.validMoves(state);
+        if (possibleMoves == 0) return evaluateLeaf(state);
+
+        long key = 0;
+        int ttDepth = 0;
+        int alphaOrig = alpha, betaOrig = beta;
+        int firstDivisor = 0;
+        if (table != null) {
+            key = TranspositionTable.key(state, isMaximizingPlayer);
+            ttDepth = tableDepth(state, currentDepth);
+            int cached = table.probe(key, ttDepth, alpha, beta);
+            if (cached != TranspositionTable.NO_VALUE) {
+                ttHits++;
+                return cached;
+            }
+            ttMisses++;
+            firstDivisor = table.bestMove(key);
+        }
+        int ply = Math.max(0, Math.min(rootSearchDepth - currentDepth, killerMoves.length - 1));
+        if (firstDivisor == 0) firstDivisor = preferredMove(ply, isMaximizingPlayer);
+
+        int bestScore = isMaximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int bestDivisor = 0;
+        boolean firstChild = true;
+        for (int k = 0; k < 2; k++) {
+            int divisor = firstDivisor == 3 ? 3 - k : 2 + k;
+            if ((possibleMoves & PackedState.moveBit(divisor)) == 0) continue;
+            long nextState = PackedState.makeMove(state, divisor);
+            int score;
+            if (firstChild || isLeaf(nextState, currentDepth - 1)) {
+                score = pvs(nextState, currentDepth - 1, alpha, beta, !isMaximizingPlayer);
+                firstChild = false;
+            } else if (isMaximizingPlayer) {
+                score = pvs(nextState, currentDepth - 1, alpha, alpha + 1, false);
+                if (score > alpha && score < beta) score = pvs(nextState, currentDepth - 1, alpha, beta, false);
+            } else {
+                score = pvs(nextState, currentDepth - 1, beta - 1, beta, true);
+                if (score < beta && score > alpha) score = pvs(nextState, currentDepth - 1, alpha, beta, true);
+            }
+
+            if (isMaximizingPlayer ? score > bestScore : score < bestScore) {
+                bestScore = score;
+                bestDivisor = divisor;
+            }
+            if (isMaximizingPlayer) alpha = Math.max(alpha, score); else beta = Math.min(beta, score);
+            if (beta <= alpha) {
+                recordCutoff(k == 0 || possibleMoves != BOTH_MOVES);
+                updateKillerAndHistory(ply, isMaximizingPlayer, divisor, currentDepth);
+                break;
+            }
+        }
+        if (table != null && !searchAborted) table.store(key, ttDepth, bestScore, alphaOrig, betaOrig, bestDivisor);
+        return bestScore;
+    }
+
+    // Killer move for this ply first, otherwise whichever divisor has produced more cutoffs for this side.
+    private int preferredMove(int ply, boolean isMaximizingPlayer) {
+        if (killerMoves[ply] != 0) return killerMoves[ply];
+        int[] history = historyScores[isMaximizingPlayer ? 1 : 0];
+        return history[3] > history[2] ? 3 : 2;
+    }
+
+    private void recordCutoff(boolean firstMove) {
+        if (firstMove) stats.firstMoveCutoffs++; else stats.laterMoveCutoffs++;
+    }
+
+    private void updateKillerAndHistory(int ply, boolean isMaximizingPlayer, int divisor, int currentDepth) {
+        killerMoves[ply] = divisor;
+        historyScores[isMaximizingPlayer ? 1 : 0][divisor] += currentDepth * currentDepth;
+    }
+
+    private int evaluateLeaf(long state) {
+        stats.evaluations++;
+        if (!detailedTiming) return evaluateWithWeights(state);
+        long start = System.nanoTime();
+        int value = evaluateWithWeights(state);
+        stats.evaluateNanos += System.nanoTime() - start;
+        return value;
+    }
+
+    // The default weights keep the constant divisors, which the JIT turns into multiplications.
+    private int evaluateWithWeights(long state) {
+        return evalWeights == EvalWeights.DEFAULT ? evaluate(state) : evalWeights.evaluate(state);
+    }
+
+    static int evaluate(long state) {
+        return evaluate(PackedState.scoreDiff(state), PackedState.currentNum(state), PackedState.validMoves(state));
+    }
+
+    // The number only counts within 100 of the end threshold, so callers with larger numbers may pass
+    // any value above that (LargeNumberPlayer passes a saturated one). EvalWeights.DEFAULT matches it.
+    static int evaluate(int scoreDiff, int num, int possibleMoves) {
+        if (num <= GameLogic.GAME_END_THRESHOLD || possibleMoves == 0) return terminalScore(scoreDiff);
+
+        int endProximity = Math.max(0, 100 - (num - GameLogic.GAME_END_THRESHOLD));
+        int proxFactor = 0;
+        if (scoreDiff < 0) proxFactor = -endProximity / 5;
+        else if (scoreDiff > 0) proxFactor = endProximity / 10;
+        boolean canDiv2 = (possibleMoves & PackedState.MOVE_DIV2) != 0;
+        boolean canDiv3 = (possibleMoves & PackedState.MOVE_DIV3) != 0;
+        int optsBonus = (canDiv2 && canDiv3) ? 3 : 0;
+        int stratBonus = 0;
+        if (canDiv3) stratBonus += 1;
+        if (canDiv2 && !canDiv3) stratBonus -= 1;
+
+        return scoreDiff + proxFactor + optsBonus + stratBonus;
+    }
+
+    static int terminalScore(int scoreDiff) {
+        if (scoreDiff > 0) return 10000 + scoreDiff;
+        if (scoreDiff < 0) return -10000 + scoreDiff;
+        return 0;
+    }
+}
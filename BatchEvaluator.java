@@ -0,0 +1,178 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// AIPlayer.evaluate over arrays of positions (current number and score difference, computer's side; the
+// side to move does not enter the evaluation) with the default weights. Every term is computed without
+// branches: the move checks are a bit test and a multiply by the inverse of 3, the divisions of the
+// proximity factor by 5 and 10 are (e * 205) >> 10 and >> 11, exact for the 0..100 range it takes, and
+// terminal positions are blended in with a mask. create() returns the Vector API kernel in
+// incubator/VectorBatchEvaluator.java when it was compiled and the JVM runs with
+// --add-modules jdk.incubator.vector, and this scalar version otherwise:
+//   javac --add-modules jdk.incubator.vector -cp . -d . incubator/VectorBatchEvaluator.java
+// Usage: java [--add-modules jdk.incubator.vector] BatchEvaluator [--positions N] [--seconds S]
+// benchmarks evaluations per second of AIPlayer.evaluate against both batch kernels after checking
+// that they agree on every position.
+public class BatchEvaluator {
+    static final String VECTOR_KERNEL = "VectorBatchEvaluator";
+    // x * INVERSE_OF_3 (mod 2^32) is at most THIRD_OF_RANGE, unsigned, exactly when x is a multiple of 3.
+    static final int INVERSE_OF_3 = 0xAAAAAAAB;
+    static final int THIRD_OF_RANGE = 0x55555555;
+    static final int END_PROXIMITY_LIMIT = 100 + GameLogic.GAME_END_THRESHOLD;
+    static final int WIN_SCORE = 10000;
+
+    private int[] numScratch = new int[0];
+    private int[] diffScratch = new int[0];
+
+    public static BatchEvaluator create() {
+        try {
+            return Class.forName(VECTOR_KERNEL).asSubclass(BatchEvaluator.class).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new BatchEvaluator();
+        }
+    }
+
+    public String getName() { return "scalar"; }
+
+    // out[i] = AIPlayer.evaluate(diffs[i], nums[i], validMoves) for i < count.
+    public void evaluate(int[] nums, int[] diffs, int[] out, int count) {
+        for (int i = 0; i < count; i++) out[i] = evaluate(nums[i], diffs[i]);
+    }
+
+    // Packed states, unpacked into reused scratch arrays first; not thread-safe.
+    public void evaluate(long[] states, int[] out, int count) {
+        if (numScratch.length < count) {
+            numScratch = new int[count];
+            diffScratch = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            numScratch[i] = PackedState.currentNum(states[i]);
+            diffScratch[i] = PackedState.scoreDiff(states[i]);
+        }
+        evaluate(numScratch, diffScratch, out, count);
+    }
+
+    static int evaluate(int num, int diff) {
+        int canDiv2 = ~num & 1;
+        int canDiv3 = (int) (((num * INVERSE_OF_3) & 0xFFFFFFFFL) - (THIRD_OF_RANGE + 1L) >>> 63);
+        int running = (GameLogic.GAME_END_THRESHOLD - num) >>> 31;
+        int over = -((running ^ 1) | ((canDiv2 | canDiv3) ^ 1));
+
+        int negative = diff >> 31;
+        int positive = -diff >> 31;
+        int x = END_PROXIMITY_LIMIT - num;
+        int scaled = (x & ~(x >> 31)) * 205;
+        int proxFactor = (-(scaled >> 10) & negative) | ((scaled >> 11) & positive);
+        int bonus = 3 * (canDiv2 & canDiv3) + canDiv3 - (canDiv2 & (canDiv3 ^ 1));
+        int heuristic = diff + proxFactor + bonus;
+        int terminal = diff + (WIN_SCORE & positive) - (WIN_SCORE & negative);
+        return (terminal & over) | (heuristic & ~over);
+    }
+
+    // Positions reachable from random start numbers by random play, terminal ones included.
+    static long[] samplePositions(int count, long seed) {
+        Random random = new Random(seed);
+        List<Integer> starts = GameLogic.getAllStartNumbers();
+        long[] states = new long[count];
+        for (int i = 0; i < count; i++) {
+            long state = PackedState.pack(starts.get(random.nextInt(starts.size())), 0, 0, random.nextBoolean());
+            for (int plies = random.nextInt(12); plies > 0 && !PackedState.isGameOver(state); plies--) {
+                int possibleMoves = PackedState.validMoves(state);
+                int divisor = possibleMoves == PackedState.MOVE_DIV3
+                        || possibleMoves != PackedState.MOVE_DIV2 && random.nextBoolean() ? 3 : 2;
+                state = PackedState.makeMove(state, divisor);
+            }
+            states[i] = state;
+        }
+        return states;
+    }
+
+    private static int countMismatches(BatchEvaluator evaluator, int[] nums, int[] diffs, int[] expected) {
+        int[] out = new int[nums.length];
+        evaluator.evaluate(nums, diffs, out, nums.length);
+        int mismatches = 0;
+        for (int i = 0; i < out.length; i++) if (out[i] != expected[i]) mismatches++;
+        return mismatches;
+    }
+
+    public static void main(String[] args) {
+        int count = 4096;
+        double seconds = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--positions": count = Integer.parseInt(args[++i]); break;
+                case "--seconds": seconds = Double.parseDouble(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        int positions = count;
+
+        // Every number up to 200000 with every difference in +-60, then sampled game positions.
+        int span = 200_000 * 121;
+        int[] nums = new int[span];
+        int[] diffs = new int[span];
+        int[] expected = new int[span];
+        for (int i = 0; i < span; i++) {
+            nums[i] = 1 + i / 121;
+            diffs[i] = i % 121 - 60;
+            expected[i] = AIPlayer.evaluate(diffs[i], nums[i], PackedState.validMoves(PackedState.pack(nums[i], 0, 0, false)));
+        }
+        BatchEvaluator vector = create();
+        List<BatchEvaluator> kernels = new ArrayList<>(List.of(new BatchEvaluator()));
+        if (!vector.getName().equals("scalar")) kernels.add(vector);
+        for (BatchEvaluator kernel : kernels) {
+            int mismatches = countMismatches(kernel, nums, diffs, expected);
+            System.out.printf(Locale.ROOT, "%-24s %d of %d exhaustive positions differ%n", kernel.getName(), mismatches, span);
+            if (mismatches != 0) System.exit(1);
+        }
+        if (kernels.size() == 1) {
+            System.out.println("Vector kernel not available (compile incubator/ and add --add-modules jdk.incubator.vector)");
+        }
+
+        long[] states = samplePositions(positions, 1);
+        int[] sampleNums = new int[positions];
+        int[] sampleDiffs = new int[positions];
+        for (int i = 0; i < positions; i++) {
+            sampleNums[i] = PackedState.currentNum(states[i]);
+            sampleDiffs[i] = PackedState.scoreDiff(states[i]);
+        }
+        int[] out = new int[positions];
+        long sink = 0;
+        double scalarRate = 0;
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+            double rate = measure(seconds, positions, () -> {
+                for (int i = 0; i < states.length; i++) out[i] = AIPlayer.evaluate(states[i]);
+            });
+            sink += out[positions - 1];
+            if (report) {
+                scalarRate = rate;
+                System.out.printf(Locale.ROOT, "%-24s %8.1f M evaluations/s%n", "AIPlayer.evaluate", rate / 1e6);
+            }
+            for (BatchEvaluator kernel : kernels) {
+                double batchRate = measure(seconds, positions, () -> kernel.evaluate(sampleNums, sampleDiffs, out, positions));
+                sink += out[positions - 1];
+                if (report) {
+                    System.out.printf(Locale.ROOT, "%-24s %8.1f M evaluations/s (%.2fx)%n",
+                            "batch " + kernel.getName(), batchRate / 1e6, batchRate / scalarRate);
+                }
+            }
+        }
+        if (sink == Long.MIN_VALUE) System.out.println();
+    }
+
+    // The first round of main() is warmup; this only times repeated calls for about the given seconds.
+    private static double measure(double seconds, int positions, Runnable batch) {
+        long budget = (long) (seconds * 1e9);
+        long calls = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int k = 0; k < 64; k++) batch.run();
+            calls += 64;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < budget);
+        return calls * (double) positions * 1e9 / elapsed;
+    }
+}
@@ -0,0 +1,8 @@
+// Shared flag that asks a running search to stop. The search polls it every 1024 nodes and then
+// returns the move from its last completed depth; a token stays cancelled once cancel() is called.
+public class CancellationToken {
+    private volatile boolean cancelled;
+
+    public void cancel() { cancelled = true; }
+    public boolean isCancelled() { return cancelled; }
+}
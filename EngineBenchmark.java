@@ -0,0 +1,390 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Repeatable micro-benchmarks for the engine hot paths, using only the JDK: timed warmup, several measured
+// iterations, allocation per operation from the thread allocation counter, and JSON output with stable
+// benchmark/param keys so runs from two commits can be diffed. The same suite runs under JMH with
+// mvn -B -Pjmh package (see pom.xml and jmh/src/bench/EngineBenchmarks.java); this one needs only a JDK.
+// Usage: java EngineBenchmark [--out results.json] [--filter text] [--quick] [--nodes] [--reuse]
+// --nodes skips timing and prints deterministic search node counts of each algorithm against ALPHA_BETA.
+// --reuse skips timing and prints the nodes a whole game costs with and without reuse between moves.
+public class EngineBenchmark {
+    static final int[] START_NUMBERS = {10008, 12288, 13824, 15552, 17496, 18432, 19440};
+    static final int[] SEARCH_DEPTHS = {4, 6, 8, 10, 12};
+    static final AIPlayer.Algorithm[] SEARCH_ALGORITHMS = {
+            AIPlayer.Algorithm.MINIMAX, AIPlayer.Algorithm.ALPHA_BETA, AIPlayer.Algorithm.PVS, AIPlayer.Algorithm.MTDF};
+    static final int DEEP_POSITION_PLIES = 9;
+    static final int EVAL_BATCH = 1024;
+    // MCTS depths are playout budgets in thousands.
+    static final int[] MCTS_DEPTHS = {1, 4};
+    // MCTS games cost milliseconds a move, so the reuse comparison plays them on every 8th start only.
+    static final int MCTS_REUSE_START_STRIDE = 8;
+    // Around 10^17-10^18, from short games (few factors of 2 and 3) to ones 60 plies deep.
+    static final long[] LARGE_START_NUMBERS = {
+            1_000_000_000_000_000_000L, 415_989_582_513_831_936L, 576_460_752_303_423_488L, 450_283_905_890_997_363L};
+    static final int[] LARGE_SEARCH_DEPTHS = {12, 24, 48};
+    // Cleared before every search, so kept small enough not to dominate the timing.
+    static final int LARGE_TT_ENTRIES = 1 << 14;
+
+    interface Operation {
+        long run(int i);
+    }
+
+    static class Result {
+        final String benchmark;
+        final String params;
+        double nsPerOp;
+        double errorNs;
+        double bytesPerOp;
+        double nodesPerOp;
+
+        Result(String benchmark, String params) {
+            this.benchmark = benchmark;
+            this.params = params;
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"benchmark\":\"%s\",\"params\":{%s},\"nsPerOp\":%.3f,\"errorNs\":%.3f,\"opsPerSec\":%.1f," +
+                            "\"bytesPerOp\":%.2f,\"nodesPerOp\":%.2f,\"nsPerNode\":%.3f}",
+                    benchmark, params, nsPerOp, errorNs, nsPerOp == 0 ? 0 : 1e9 / nsPerOp, bytesPerOp, nodesPerOp,
+                    nodesPerOp == 0 ? 0 : nsPerOp / nodesPerOp);
+        }
+    }
+
+    final long warmupNanos;
+    final long iterationNanos;
+    final int iterations;
+    final String filter;
+    final List<Result> results = new ArrayList<>();
+    volatile long sink;
+
+    EngineBenchmark(boolean quick, String filter) {
+        this.warmupNanos = quick ? 100_000_000L : 1_000_000_000L;
+        this.iterationNanos = quick ? 50_000_000L : 500_000_000L;
+        this.iterations = quick ? 3 : 5;
+        this.filter = filter;
+    }
+
+    Result measure(String benchmark, String params, Operation operation) {
+        if (filter != null && !(benchmark + " " + params).contains(filter)) return null;
+        Result result = new Result(benchmark, params);
+
+        long accumulator = 0;
+        int i = 0;
+        long warmupEnd = System.nanoTime() + warmupNanos;
+        while (System.nanoTime() < warmupEnd) {
+            for (int k = 0; k < 64; k++) accumulator += operation.run(i++);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        double[] samples = new double[iterations];
+        long totalOps = 0;
+        long allocatedBefore = allocatedBytes(threads, threadId);
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            long ops = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                for (int k = 0; k < 64; k++) accumulator += operation.run(i++);
+                ops += 64;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < iterationNanos);
+            samples[iteration] = (double) elapsed / ops;
+            totalOps += ops;
+        }
+        long allocated = allocatedBytes(threads, threadId) - allocatedBefore;
+        sink = accumulator;
+
+        double mean = 0;
+        for (double sample : samples) mean += sample;
+        mean /= iterations;
+        double variance = 0;
+        for (double sample : samples) variance += (sample - mean) * (sample - mean);
+        result.nsPerOp = mean;
+        result.errorNs = iterations > 1 ? 1.96 * Math.sqrt(variance / (iterations - 1)) / Math.sqrt(iterations) : 0;
+        result.bytesPerOp = allocated < 0 ? -1 : (double) allocated / totalOps;
+        results.add(result);
+        System.out.printf(Locale.ROOT, "%-22s %-34s %14.1f ns/op  +- %8.1f  %10.1f B/op%n",
+                benchmark, params, result.nsPerOp, result.errorNs, result.bytesPerOp);
+        return result;
+    }
+
+    static long allocatedBytes(ThreadMXBean threads, long threadId) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId);
+        }
+        return Long.MIN_VALUE;
+    }
+
+    void runAll() {
+        GameState[] states = new GameState[START_NUMBERS.length];
+        long[] packed = new long[START_NUMBERS.length];
+        for (int i = 0; i < START_NUMBERS.length; i++) {
+            states[i] = new GameState(START_NUMBERS[i], false);
+            packed[i] = PackedState.of(states[i]);
+        }
+        int n = START_NUMBERS.length;
+
+        measure("GameState.clone", "", i -> states[i % n].clone().currentNum);
+        measure("GameState.makeMove", "", i -> {
+            GameState state = states[i % n].clone();
+            state.makeMove(2);
+            return state.currentNum;
+        });
+        measure("GameLogic.getValidMoves", "", i -> GameLogic.getValidMoves(states[i % n]).size());
+        measure("PackedState.makeMove", "", i -> PackedState.makeMove(packed[i % n], 2));
+        measure("PackedState.validMoves", "", i -> PackedState.validMoves(packed[i % n]));
+        measure("AIPlayer.evaluate", "", i -> AIPlayer.evaluate(packed[i % n] + (i & 0xFF)));
+        // One operation is a whole batch of EVAL_BATCH positions; the kernels get them already unpacked.
+        long[] batchStates = BatchEvaluator.samplePositions(EVAL_BATCH, 1);
+        int[] batchNums = new int[EVAL_BATCH];
+        int[] batchDiffs = new int[EVAL_BATCH];
+        for (int k = 0; k < EVAL_BATCH; k++) {
+            batchNums[k] = PackedState.currentNum(batchStates[k]);
+            batchDiffs[k] = PackedState.scoreDiff(batchStates[k]);
+        }
+        int[] batchScores = new int[EVAL_BATCH];
+        measure("AIPlayer.evaluate", "\"batch\":" + EVAL_BATCH, i -> {
+            for (int k = 0; k < EVAL_BATCH; k++) batchScores[k] = AIPlayer.evaluate(batchStates[k]);
+            return batchScores[i % EVAL_BATCH];
+        });
+        BatchEvaluator vectorKernel = BatchEvaluator.create();
+        for (BatchEvaluator kernel : vectorKernel.getClass() == BatchEvaluator.class
+                ? new BatchEvaluator[]{vectorKernel} : new BatchEvaluator[]{new BatchEvaluator(), vectorKernel}) {
+            measure("BatchEvaluator.evaluate", "\"kernel\":\"" + kernel.getName() + "\",\"batch\":" + EVAL_BATCH, i -> {
+                kernel.evaluate(batchNums, batchDiffs, batchScores, EVAL_BATCH);
+                return batchScores[i % EVAL_BATCH];
+            });
+        }
+
+        for (AIPlayer.Algorithm algorithm : SEARCH_ALGORITHMS) {
+            for (int depth : SEARCH_DEPTHS) {
+                AIPlayer player = new AIPlayer(algorithm, depth, 0);
+                Result result = measure("AIPlayer.findBestMove",
+                        String.format(Locale.ROOT, "\"algorithm\":\"%s\",\"depth\":%d", algorithm, depth),
+                        i -> player.findBestMove(states[i % n]).getDivisor());
+                if (result != null) {
+                    long nodes = 0;
+                    for (int k = 0; k < n; k++) {
+                        player.findBestMove(states[k]);
+                        nodes += player.getNodesChecked();
+                    }
+                    recordNodes(result, nodes, n);
+                }
+            }
+        }
+        AIPlayer exact = new AIPlayer(AIPlayer.Algorithm.EXACT, 0);
+        measure("AIPlayer.findBestMove", "\"algorithm\":\"EXACT\"", i -> exact.findBestMove(states[i % n]).getDivisor());
+        for (int depth : MCTS_DEPTHS) {
+            AIPlayer player = new AIPlayer(AIPlayer.Algorithm.MCTS, depth);
+            Result result = measure("AIPlayer.findBestMove",
+                    String.format(Locale.ROOT, "\"algorithm\":\"MCTS\",\"depth\":%d", depth),
+                    i -> player.findBestMove(states[i % n]).getDivisor());
+            if (result != null) {
+                long nodes = 0;
+                for (int k = 0; k < n; k++) {
+                    player.findBestMove(states[k]);
+                    nodes += player.getNodesChecked();
+                }
+                recordNodes(result, nodes, n);
+            }
+        }
+
+        runLargeNumbers(states);
+    }
+
+    // The lattice engine against the int one on the same start numbers and trees (no transposition table
+    // on either side, so node counts match and ns/node is the per-node cost), then on starts near 10^18.
+    void runLargeNumbers(GameState[] states) {
+        int n = states.length;
+        LargeGameState[] large = new LargeGameState[n];
+        for (int i = 0; i < n; i++) large[i] = LargeGameState.of(states[i]);
+        int m = LARGE_START_NUMBERS.length;
+        LargeGameState[] huge = new LargeGameState[m];
+        for (int i = 0; i < m; i++) huge[i] = new LargeGameState(LARGE_START_NUMBERS[i], false);
+
+        measure("LargeGameState.new", "", i -> new LargeGameState(LARGE_START_NUMBERS[i % m], false).threes);
+        measure("LargeGameState.makeMove", "", i -> {
+            LargeGameState state = huge[i % m].clone();
+            state.makeMove(state.isMoveValid(3) ? 3 : 2);
+            return state.threes;
+        });
+        for (int depth : SEARCH_DEPTHS) {
+            LargeNumberPlayer player = new LargeNumberPlayer(AIPlayer.Algorithm.ALPHA_BETA, depth, 0);
+            Result result = measure("LargeNumberPlayer.findBestMove",
+                    String.format(Locale.ROOT, "\"algorithm\":\"ALPHA_BETA\",\"depth\":%d", depth),
+                    i -> player.findBestMove(large[i % n]).getDivisor());
+            if (result != null) {
+                long nodes = 0;
+                for (LargeGameState state : large) {
+                    player.findBestMove(state);
+                    nodes += player.getNodesChecked();
+                }
+                recordNodes(result, nodes, n);
+            }
+        }
+        for (int depth : LARGE_SEARCH_DEPTHS) {
+            LargeNumberPlayer player = new LargeNumberPlayer(AIPlayer.Algorithm.ALPHA_BETA, depth, LARGE_TT_ENTRIES);
+            Result result = measure("LargeNumberPlayer.findBestMove",
+                    String.format(Locale.ROOT, "\"algorithm\":\"ALPHA_BETA\",\"depth\":%d,\"start\":\"1e18\"", depth),
+                    i -> {
+                        player.resetGameStats();
+                        return player.findBestMove(huge[i % m]).getDivisor();
+                    });
+            if (result != null) {
+                long nodes = 0;
+                for (LargeGameState state : huge) {
+                    player.resetGameStats();
+                    player.findBestMove(state);
+                    nodes += player.getNodesChecked();
+                }
+                recordNodes(result, nodes, m);
+            }
+        }
+        LargeNumberPlayer exact = new LargeNumberPlayer(AIPlayer.Algorithm.EXACT, 0);
+        measure("LargeNumberPlayer.findBestMove", "\"algorithm\":\"EXACT\",\"start\":\"1e18\"",
+                i -> exact.findBestMove(huge[i % m]).getDivisor());
+    }
+
+    static void recordNodes(Result result, long nodes, int positions) {
+        result.nodesPerOp = (double) nodes / positions;
+        System.out.printf(Locale.ROOT, "%-57s %14.1f nodes/op %9.2f ns/node%n", "", result.nodesPerOp,
+                result.nodesPerOp == 0 ? 0 : result.nsPerOp / result.nodesPerOp);
+    }
+
+    // Plays every start number to the end with both starters, once per algorithm, and totals the nodes each
+    // algorithm searched for the same positions. Deep positions (at least DEEP_POSITION_PLIES plies of game
+    // left) are also totalled on their own, since most positions only have a few plies left.
+    static void printNodeComparison() {
+        System.out.printf("%-11s %5s %14s %9s %14s %9s%n", "algorithm", "depth", "all nodes", "vs AB", "deep nodes", "vs AB");
+        for (int depth : SEARCH_DEPTHS) {
+            long[] allNodes = new long[SEARCH_ALGORITHMS.length];
+            long[] deepNodes = new long[SEARCH_ALGORITHMS.length];
+            for (int startNum : GameLogic.getAllStartNumbers()) {
+                for (boolean playerStarts : new boolean[]{true, false}) {
+                    AIPlayer[] players = new AIPlayer[SEARCH_ALGORITHMS.length];
+                    for (int i = 0; i < players.length; i++) players[i] = new AIPlayer(SEARCH_ALGORITHMS[i], depth);
+                    GameState state = new GameState(startNum, playerStarts);
+                    while (!state.isGameOver()) {
+                        boolean deep = AIPlayer.remainingPlies(state.getCurrentNum()) >= DEEP_POSITION_PLIES;
+                        Move played = null;
+                        for (int i = 0; i < players.length; i++) {
+                            Move move = players[i].findBestMove(state);
+                            if (SEARCH_ALGORITHMS[i] == AIPlayer.Algorithm.ALPHA_BETA) played = move;
+                            allNodes[i] += players[i].getNodesChecked();
+                            if (deep) deepNodes[i] += players[i].getNodesChecked();
+                        }
+                        state.makeMove(played.getDivisor());
+                    }
+                }
+            }
+            int reference = Arrays.asList(SEARCH_ALGORITHMS).indexOf(AIPlayer.Algorithm.ALPHA_BETA);
+            for (int i = 0; i < SEARCH_ALGORITHMS.length; i++) {
+                System.out.printf(Locale.ROOT, "%-11s %5d %14d %+8.1f%% %14d %+8.1f%%%n", SEARCH_ALGORITHMS[i], depth,
+                        allNodes[i], 100.0 * (allNodes[i] - allNodes[reference]) / allNodes[reference],
+                        deepNodes[i], 100.0 * (deepNodes[i] - deepNodes[reference]) / deepNodes[reference]);
+            }
+        }
+    }
+
+    // Engine self-play with each seat an engine of its own, as in Tournament, once with tree reuse and once
+    // with every move searched cold. Games that differ are counted, since reuse may change a move wherever
+    // a deeper result from an earlier search stands in for a fixed-depth one.
+    static void printReuseComparison() {
+        System.out.printf("%-11s %5s %6s %14s %14s %9s %8s%n", "algorithm", "depth", "games",
+                "nodes/game", "cold/game", "saved", "differ");
+        List<Integer> allStarts = GameLogic.getAllStartNumbers();
+        List<Integer> mctsStarts = new ArrayList<>();
+        for (int i = 0; i < allStarts.size(); i += MCTS_REUSE_START_STRIDE) mctsStarts.add(allStarts.get(i));
+        for (AIPlayer.Algorithm algorithm : SEARCH_ALGORITHMS) {
+            for (int depth : SEARCH_DEPTHS) printReuseRow(algorithm, depth, allStarts);
+        }
+        for (int depth : MCTS_DEPTHS) printReuseRow(AIPlayer.Algorithm.MCTS, depth, mctsStarts);
+    }
+
+    private static void printReuseRow(AIPlayer.Algorithm algorithm, int depth, List<Integer> starts) {
+        long[] nodes = new long[2];
+        int games = 0;
+        int differ = 0;
+        AIPlayer[][] seats = new AIPlayer[2][];
+        for (int mode = 0; mode < 2; mode++) {
+            seats[mode] = new AIPlayer[]{new AIPlayer(algorithm, depth), new AIPlayer(algorithm, depth)};
+            for (AIPlayer seat : seats[mode]) seat.setTreeReuse(mode == 0);
+        }
+        for (int startNum : starts) {
+            for (boolean playerStarts : new boolean[]{true, false}) {
+                String[] moves = new String[2];
+                for (int mode = 0; mode < 2; mode++) {
+                    StringBuilder played = new StringBuilder();
+                    GameState state = new GameState(startNum, playerStarts);
+                    for (AIPlayer seat : seats[mode]) seat.resetGameStats();
+                    while (!state.isGameOver()) {
+                        int mover = state.isPlayerTurn() ? 1 : 0;
+                        int divisor = seats[mode][mover].findBestMove(mover == 1 ? state.mirrored() : state).getDivisor();
+                        state.makeMove(divisor);
+                        played.append(divisor);
+                    }
+                    for (AIPlayer seat : seats[mode]) nodes[mode] += seat.getTotalNodesThisGame();
+                    moves[mode] = played.toString();
+                }
+                games++;
+                if (!moves[0].equals(moves[1])) differ++;
+            }
+        }
+        System.out.printf(Locale.ROOT, "%-11s %5d %6d %14.1f %14.1f %8.1f%% %8d%n", algorithm, depth, games,
+                (double) nodes[0] / games, (double) nodes[1] / games,
+                nodes[1] == 0 ? 0 : 100.0 * (nodes[1] - nodes[0]) / nodes[1], differ);
+    }
+
+    String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "{\"jvm\":\"%s %s\",\"processors\":%d,\"results\":[%n",
+                System.getProperty("java.vm.name"), System.getProperty("java.version"),
+                Runtime.getRuntime().availableProcessors()));
+        for (int i = 0; i < results.size(); i++) {
+            sb.append("  ").append(results.get(i).toJson()).append(i + 1 < results.size() ? ",\n" : "\n");
+        }
+        return sb.append("]}\n").toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        String out = null;
+        String filter = null;
+        boolean quick = false;
+        boolean nodes = false;
+        boolean reuse = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out": out = args[++i]; break;
+                case "--filter": filter = args[++i]; break;
+                case "--quick": quick = true; break;
+                case "--nodes": nodes = true; break;
+                case "--reuse": reuse = true; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (nodes) {
+            printNodeComparison();
+            return;
+        }
+        if (reuse) {
+            printReuseComparison();
+            return;
+        }
+        EngineBenchmark benchmark = new EngineBenchmark(quick, filter);
+        benchmark.runAll();
+        if (out != null) {
+            Files.write(Paths.get(out), benchmark.toJson().getBytes());
+            System.out.println("Results written to " + out);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// JMX view of one engine, registered as divideconquer:type=Engine,name="<label> #<id>".
+// recordMove runs on the engine's search thread, the only writer, so every counter moves forward with
+// lazySet: an ordered plain store, no CAS and no lock. JMX readers may see the counters of a move a
+// moment apart. Latency and nodes/s are rolling over a ring of the last WINDOW moves.
+public class EngineMetrics implements EngineMetricsMBean {
+    static final int WINDOW = 1024;
+    static final String DOMAIN = "divideconquer";
+    private static final AtomicInteger nextId = new AtomicInteger(1);
+
+    final AIPlayer.Algorithm algorithm;
+    final int depth;
+    final String name;
+    private final AtomicLong moves = new AtomicLong();
+    private final AtomicLong bookMoves = new AtomicLong();
+    private final AtomicLong abortedSearches = new AtomicLong();
+    private final AtomicLong totalNodes = new AtomicLong();
+    private final AtomicLong depthSum = new AtomicLong();
+    private final AtomicLongArray recentNanos = new AtomicLongArray(WINDOW);
+    private final AtomicLongArray recentNodes = new AtomicLongArray(WINDOW);
+    private ObjectName objectName;
+
+    EngineMetrics(AIPlayer.Algorithm algorithm, int depth, String label) {
+        this.algorithm = algorithm;
+        this.depth = depth;
+        this.name = label + " #" + nextId.getAndIncrement();
+    }
+
+    void register() {
+        try {
+            objectName = new ObjectName(DOMAIN + ":type=Engine,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (JMException e) {
+            System.err.println("Warning: engine metrics for " + name + " not registered: " + e.getMessage());
+            objectName = null;
+        }
+    }
+
+    void unregister() {
+        if (objectName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            System.err.println("Warning: engine metrics for " + name + " not unregistered: " + e.getMessage());
+        }
+        objectName = null;
+    }
+
+    void recordMove(long nanos, long nodes, int depthReached, boolean fromBook, boolean aborted) {
+        long move = moves.get();
+        int slot = (int) (move & (WINDOW - 1));
+        recentNanos.lazySet(slot, nanos);
+        recentNodes.lazySet(slot, nodes);
+        totalNodes.lazySet(totalNodes.get() + nodes);
+        if (fromBook) bookMoves.lazySet(bookMoves.get() + 1);
+        else depthSum.lazySet(depthSum.get() + depthReached);
+        if (aborted) abortedSearches.lazySet(abortedSearches.get() + 1);
+        moves.lazySet(move + 1);
+    }
+
+    @Override public String getAlgorithm() { return algorithm.name(); }
+    @Override public int getDepth() { return depth; }
+    @Override public long getMovesServed() { return moves.get(); }
+    @Override public long getBookMoves() { return bookMoves.get(); }
+    @Override public long getAbortedSearches() { return abortedSearches.get(); }
+    @Override public long getTotalNodes() { return totalNodes.get(); }
+
+    @Override
+    public long getNodesPerSecond() {
+        int count = (int) Math.min(moves.get(), WINDOW);
+        long nodes = 0, nanos = 0;
+        for (int i = 0; i < count; i++) {
+            nodes += recentNodes.get(i);
+            nanos += recentNanos.get(i);
+        }
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+
+    @Override public long getLatencyP50Nanos() { return recentLatency(50); }
+    @Override public long getLatencyP99Nanos() { return recentLatency(99); }
+    @Override public long getLatencyMaxNanos() { return recentLatency(100); }
+
+    @Override
+    public double getAverageDepthReached() {
+        long searched = moves.get() - bookMoves.get();
+        return searched == 0 ? 0 : (double) depthSum.get() / searched;
+    }
+
+    private long recentLatency(double percent) {
+        int count = (int) Math.min(moves.get(), WINDOW);
+        if (count == 0) return 0;
+        long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) sorted[i] = recentNanos.get(i);
+        Arrays.sort(sorted);
+        return sorted[Math.max(0, (int) Math.ceil(count * percent / 100.0) - 1)];
+    }
+}
@@ -0,0 +1,14 @@
+// Read side of EngineMetrics as shown in JConsole. Rolling values cover the last EngineMetrics.WINDOW moves.
+public interface EngineMetricsMBean {
+    String getAlgorithm();
+    int getDepth();
+    long getMovesServed();
+    long getBookMoves();
+    long getAbortedSearches();
+    long getTotalNodes();
+    long getNodesPerSecond();
+    long getLatencyP50Nanos();
+    long getLatencyP99Nanos();
+    long getLatencyMaxNanos();
+    double getAverageDepthReached();
+}
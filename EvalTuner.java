@@ -0,0 +1,370 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Offline tool: tunes EvalWeights on all cores and prints the best weight set, which
+// Tournament/GameServer engine specs load with ALGORITHM:depth@file.
+// Usage: java EvalTuner [--mode spsa|fit] [--engine ALPHA_BETA:4] [--from weights] [--iterations N]
+//                       [--games G] [--starts standard|deep] [--threads T] [--seed S] [--out file]
+// spsa: simultaneous perturbation over self-play. Each iteration plays the weights nudged up against the
+// same weights nudged down in G games from random start numbers and short random openings, each opening
+// once from either seat, and steps towards the side that scored better.
+// fit: Texel-style local search against the exact solver. Every position reachable from every start
+// number is searched at the engine depth, the root score squashed to a win probability and compared
+// with the exact result; one term at a time moves while the mean squared error drops.
+// Games from GameLogic's start numbers are over within a few plies, which leaves the evaluation little
+// to decide; --starts deep uses numbers with at least DEEP_START_PLIES factors of 2 and 3 instead.
+public class EvalTuner {
+    static final int OPENING_PLIES = 4;
+    static final int DEEP_START_PLIES = 16;
+    static final int[] DEEP_START_RESIDUALS = {1, 5, 7, 11, 13};
+    static final int TASKS_PER_THREAD = 4;
+    // Perturbation of each term at the first SPSA iteration, in the term's own units; it shrinks with
+    // (k + 1)^-SPSA_GAMMA but never below 1, since the weights are integers.
+    static final double[] PERTURBATION = {20, 1, 2, 2, 1, 1};
+    static final double LEARNING_RATE = 10;
+    static final double SPSA_ALPHA = 0.602;
+    static final double SPSA_GAMMA = 0.101;
+    static final int[] FIT_STEPS = {10, 1, 1, 1, 1, 1};
+    static final double[] FIT_SCALES = {1, 2, 3, 5, 8, 13, 20, 30, 50, 80};
+
+    final Tournament.EngineSpec engine;
+    final int threads;
+    final ExecutorService executor;
+    final List<Integer> startNumbers;
+    final ThreadLocal<AIPlayer[]> engines;
+
+    EvalTuner(Tournament.EngineSpec engine, int threads, List<Integer> startNumbers) {
+        this.engine = engine;
+        this.threads = threads;
+        this.startNumbers = startNumbers;
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.engines = ThreadLocal.withInitial(() -> new AIPlayer[]{
+                new AIPlayer(engine.algorithm, engine.depth, 0), new AIPlayer(engine.algorithm, engine.depth, 0)});
+    }
+
+    // Every int residual * 2^a * 3^b with a + b >= DEEP_START_PLIES, in increasing order.
+    static List<Integer> deepStartNumbers() {
+        List<Integer> numbers = new ArrayList<>();
+        for (int residual : DEEP_START_RESIDUALS) {
+            for (long twos = residual; twos <= Integer.MAX_VALUE; twos *= 2) {
+                for (long num = twos; num <= Integer.MAX_VALUE; num *= 3) {
+                    if (AIPlayer.remainingPlies((int) num) >= DEEP_START_PLIES) numbers.add((int) num);
+                }
+            }
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    interface Chunk {
+        double run(int from, int to);
+    }
+
+    // Splits [0, count) into chunks on the pool and sums what they return.
+    double parallelSum(int count, Chunk chunk) {
+        int tasks = Math.max(1, Math.min(count, threads * TASKS_PER_THREAD));
+        List<Future<Double>> futures = new ArrayList<>();
+        for (int t = 0; t < tasks; t++) {
+            int from = (int) ((long) count * t / tasks);
+            int to = (int) ((long) count * (t + 1) / tasks);
+            futures.add(executor.submit(() -> chunk.run(from, to)));
+        }
+        double sum = 0;
+        try {
+            for (Future<Double> future : futures) sum += future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tuning task failed", e.getCause());
+        }
+        return sum;
+    }
+
+    static long mix(long seed, long value) {
+        long z = seed + value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Mean score of a against b in [-1, 1]: game 2i and 2i + 1 share an opening, with a in the computer
+    // seat in the first and the player seat in the second.
+    double playMatch(EvalWeights a, EvalWeights b, int games, long seed) {
+        return parallelSum(games, (from, to) -> {
+            AIPlayer[] players = engines.get();
+            players[0].setEvalWeights(a);
+            players[1].setEvalWeights(b);
+            double score = 0;
+            for (int g = from; g < to; g++) {
+                boolean aIsComputer = (g & 1) == 0;
+                int winner = playGame(aIsComputer ? players[0] : players[1], aIsComputer ? players[1] : players[0],
+                        mix(seed, g >>> 1));
+                score += aIsComputer ? -winner : winner;
+            }
+            return score;
+        }) / games;
+    }
+
+    // GameLogic.checkWinner of one game from a random start and opening: 1 if the player seat won.
+    int playGame(AIPlayer computer, AIPlayer player, long random) {
+        int start = startNumbers.get((int) Long.remainderUnsigned(random, startNumbers.size()));
+        random = mix(random, 1);
+        GameState state = new GameState(start, (random & 1) != 0);
+        int openingPlies = (int) ((random >>> 1) % (OPENING_PLIES + 1));
+        for (int ply = 0; ply < openingPlies && !state.isGameOver(); ply++) {
+            boolean preferDiv3 = ((random >>> (8 + ply)) & 1) != 0;
+            state.makeMove(state.isMoveValid(3) && (preferDiv3 || !state.isMoveValid(2)) ? 3 : 2);
+        }
+        while (!state.isGameOver()) {
+            Move move = state.isPlayerTurn() ? player.findBestMove(state.mirrored()) : computer.findBestMove(state);
+            state.makeMove(move.getDivisor());
+        }
+        return GameLogic.checkWinner(state);
+    }
+
+    static EvalWeights rounded(double[] theta) {
+        int[] values = new int[theta.length];
+        for (int i = 0; i < theta.length; i++) values[i] = (int) Math.round(clamp(theta[i], i));
+        return EvalWeights.of(values);
+    }
+
+    static double clamp(double value, int term) {
+        return Math.max(EvalWeights.MIN[term], Math.min(EvalWeights.MAX[term], value));
+    }
+
+    EvalWeights spsa(EvalWeights from, int iterations, int games, long seed) {
+        double[] theta = Arrays.stream(from.toArray()).asDoubleStream().toArray();
+        Random random = new Random(seed);
+        double stability = iterations / 10.0;
+        long totalGames = 0;
+        long startTime = System.nanoTime();
+        for (int k = 0; k < iterations; k++) {
+            double[] perturbation = new double[theta.length];
+            double[] plus = theta.clone();
+            double[] minus = theta.clone();
+            for (int i = 0; i < theta.length; i++) {
+                perturbation[i] = Math.max(1, PERTURBATION[i] / Math.pow(k + 1, SPSA_GAMMA)) * (random.nextBoolean() ? 1 : -1);
+                plus[i] += perturbation[i];
+                minus[i] -= perturbation[i];
+            }
+            EvalWeights plusWeights = rounded(plus);
+            EvalWeights minusWeights = rounded(minus);
+            long iterationStart = System.nanoTime();
+            double result = playMatch(plusWeights, minusWeights, games, random.nextLong());
+            long iterationNanos = System.nanoTime() - iterationStart;
+            totalGames += games;
+
+            double gain = LEARNING_RATE / Math.pow(k + 1 + stability, SPSA_ALPHA);
+            for (int i = 0; i < theta.length; i++) theta[i] = clamp(theta[i] + gain * perturbation[i] * result, i);
+            System.out.printf(Locale.ROOT, "iteration %4d  %s vs %s  %+.4f  %d games %8.0f games/s  -> %s%n",
+                    k + 1, plusWeights, minusWeights, result, games, games * 1e9 / iterationNanos, rounded(theta));
+        }
+        System.out.printf(Locale.ROOT, "%d games in %s%n", totalGames, MatchupStats.formatNanos(System.nanoTime() - startTime));
+        return rounded(theta);
+    }
+
+    // Positions are stored with the computer to move, the side every engine searches for, and only
+    // while the game is still on. targets[i] is the exact result for that side: 1, 1/2 or 0.
+    static class Positions {
+        long[] states;
+        double[] targets;
+        byte[] optimalMoves;
+    }
+
+    static long computerToMove(long state) {
+        if (!PackedState.isPlayerTurn(state)) return state;
+        return PackedState.pack(PackedState.currentNum(state), PackedState.compScore(state),
+                PackedState.playerScore(state), false);
+    }
+
+    Positions collectPositions() {
+        Set<Long> seen = new HashSet<>();
+        List<Long> pending = new ArrayList<>();
+        for (int start : startNumbers) {
+            for (boolean playerStarts : new boolean[]{false, true}) {
+                pending.add(PackedState.pack(start, 0, 0, playerStarts));
+            }
+        }
+        while (!pending.isEmpty()) {
+            long state = pending.remove(pending.size() - 1);
+            if (PackedState.isGameOver(state) || !seen.add(computerToMove(state))) continue;
+            int possibleMoves = PackedState.validMoves(state);
+            for (int divisor = 2; divisor <= 3; divisor++) {
+                if ((possibleMoves & PackedState.moveBit(divisor)) != 0) pending.add(PackedState.makeMove(state, divisor));
+            }
+        }
+
+        Positions positions = new Positions();
+        positions.states = seen.stream().mapToLong(Long::longValue).sorted().toArray();
+        int n = positions.states.length;
+        positions.targets = new double[n];
+        positions.optimalMoves = new byte[n];
+        LatticeSolver solver = new LatticeSolver();
+        for (int i = 0; i < n; i++) {
+            long state = positions.states[i];
+            solver.prepare(state);
+            int possibleMoves = PackedState.validMoves(state);
+            int best = Integer.MIN_VALUE;
+            int[] scores = new int[4];
+            for (int divisor = 2; divisor <= 3; divisor++) {
+                if ((possibleMoves & PackedState.moveBit(divisor)) == 0) continue;
+                scores[divisor] = solver.valueAfter(divisor);
+                best = Math.max(best, scores[divisor]);
+            }
+            for (int divisor = 2; divisor <= 3; divisor++) {
+                if ((possibleMoves & PackedState.moveBit(divisor)) != 0 && scores[divisor] == best) {
+                    positions.optimalMoves[i] |= PackedState.moveBit(divisor);
+                }
+            }
+            positions.targets[i] = best > 0 ? 1 : best == 0 ? 0.5 : 0;
+        }
+        return positions;
+    }
+
+    // Root score and move of the engine for every position; returns how many moves were exact-optimal.
+    int searchAll(Positions positions, EvalWeights weights, int[] scores) {
+        return (int) parallelSum(positions.states.length, (from, to) -> {
+            AIPlayer player = engines.get()[0];
+            player.setEvalWeights(weights);
+            int optimal = 0;
+            for (int i = from; i < to; i++) {
+                Move move = player.findBestMove(PackedState.toGameState(positions.states[i]));
+                scores[i] = player.lastRootScore;
+                if ((positions.optimalMoves[i] & PackedState.moveBit(move.getDivisor())) != 0) optimal++;
+            }
+            return optimal;
+        });
+    }
+
+    static double meanSquaredError(Positions positions, int[] scores, double scale) {
+        double sum = 0;
+        for (int i = 0; i < scores.length; i++) {
+            double error = 1 / (1 + Math.exp(-scores[i] / scale)) - positions.targets[i];
+            sum += error * error;
+        }
+        return sum / scores.length;
+    }
+
+    EvalWeights fit(EvalWeights from, int maxPasses) {
+        long startTime = System.nanoTime();
+        Positions positions = collectPositions();
+        int n = positions.states.length;
+        int[] scores = new int[n];
+        int optimal = searchAll(positions, from, scores);
+        double scale = FIT_SCALES[0];
+        for (double candidate : FIT_SCALES) {
+            if (meanSquaredError(positions, scores, candidate) < meanSquaredError(positions, scores, scale)) scale = candidate;
+        }
+        EvalWeights best = from;
+        double bestError = meanSquaredError(positions, scores, scale);
+        System.out.printf(Locale.ROOT, "%d positions, scale %.0f%n", n, scale);
+        System.out.printf(Locale.ROOT, "start %s  error %.6f  exact-optimal %.2f%%%n", best, bestError, 100.0 * optimal / n);
+
+        int searches = 1;
+        for (int pass = 1; pass <= maxPasses; pass++) {
+            boolean improved = false;
+            for (int term = 0; term < EvalWeights.NAMES.length; term++) {
+                for (int direction : new int[]{1, -1}) {
+                    while (true) {
+                        int[] values = best.toArray();
+                        values[term] += direction * FIT_STEPS[term];
+                        if (values[term] < EvalWeights.MIN[term] || values[term] > EvalWeights.MAX[term]) break;
+                        EvalWeights candidate = EvalWeights.of(values);
+                        int candidateOptimal = searchAll(positions, candidate, scores);
+                        searches++;
+                        double error = meanSquaredError(positions, scores, scale);
+                        if (error >= bestError) break;
+                        best = candidate;
+                        bestError = error;
+                        optimal = candidateOptimal;
+                        improved = true;
+                    }
+                }
+            }
+            System.out.printf(Locale.ROOT, "pass %d  %s  error %.6f  exact-optimal %.2f%%%n",
+                    pass, best, bestError, 100.0 * optimal / n);
+            if (!improved) break;
+        }
+        long elapsed = System.nanoTime() - startTime;
+        System.out.printf(Locale.ROOT, "%d searches of %d positions in %s (%.0f positions/s)%n", searches, n,
+                MatchupStats.formatNanos(elapsed), (double) searches * n * 1e9 / elapsed);
+        return best;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String mode = "spsa";
+        Tournament.EngineSpec engine = Tournament.EngineSpec.parse("ALPHA_BETA:4");
+        EvalWeights from = EvalWeights.DEFAULT;
+        int iterations = 50;
+        int games = 200_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        String out = null;
+        String starts = "standard";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--mode": mode = args[++i]; break;
+                case "--engine": engine = Tournament.EngineSpec.parse(args[++i]); break;
+                case "--from": from = EvalWeights.parse(args[++i]); break;
+                case "--iterations": iterations = Integer.parseInt(args[++i]); break;
+                case "--games": games = Integer.parseInt(args[++i]) + 1 & ~1; break;
+                case "--starts": starts = args[++i]; break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--out": out = args[++i]; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (engine.algorithm == AIPlayer.Algorithm.EXACT || engine.algorithm == AIPlayer.Algorithm.MCTS) {
+            throw new IllegalArgumentException(engine.algorithm + " does not use the evaluation");
+        }
+
+        List<Integer> startNumbers;
+        switch (starts) {
+            case "standard": startNumbers = GameLogic.getAllStartNumbers(); break;
+            case "deep": startNumbers = deepStartNumbers(); break;
+            default: throw new IllegalArgumentException("Unknown start numbers: " + starts);
+        }
+
+        EvalTuner tuner = new EvalTuner(engine, threads, startNumbers);
+        System.out.println("Tuning " + engine + " by " + mode + " from " + from + " on " + startNumbers.size() + " " +
+                starts + " start numbers, " + threads + " threads");
+        EvalWeights best;
+        try {
+            switch (mode) {
+                case "spsa":
+                    best = tuner.spsa(from, iterations, games, seed);
+                    System.out.printf(Locale.ROOT, "%s vs %s: %+.4f over %d games%n", best, from,
+                            tuner.playMatch(best, from, games, mix(seed, -1)), games);
+                    break;
+                case "fit":
+                    best = tuner.fit(from, iterations);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown mode: " + mode);
+            }
+        } finally {
+            tuner.executor.shutdownNow();
+        }
+
+        System.out.println("Best weights: " + best + " (version " + best.getVersion() + ")");
+        if (out != null) {
+            Files.write(Paths.get(out), List.of("# EvalTuner " + mode + " " + engine + ": " + String.join(",", EvalWeights.NAMES),
+                    best.toString()));
+            System.out.println("Weights written to " + out);
+        }
+    }
+}
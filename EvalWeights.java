@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+// The tunable terms of AIPlayer.evaluate. DEFAULT reproduces the hardcoded evaluation exactly, and
+// engines keep using that fast path until they are given other weights. The text form is the values
+// in NAMES order separated by commas ("100,5,10,3,1,1"); a weights file holds that line, with
+// '#' comment lines allowed. getFingerprint() identifies a weight set, e.g. to tell cached results
+// computed with different evaluations apart.
+public class EvalWeights {
+    static final String[] NAMES = {
+            "proximityRange", "losingProximityDivisor", "winningProximityDivisor",
+            "bothMovesBonus", "div3Bonus", "div2OnlyPenalty"};
+    // Inclusive bounds per term. They keep every evaluation well inside terminalScore's +-10000.
+    static final int[] MIN = {0, 1, 1, -100, -100, -100};
+    static final int[] MAX = {1000, 1000, 1000, 100, 100, 100};
+    public static final EvalWeights DEFAULT = new EvalWeights(100, 5, 10, 3, 1, 1);
+
+    final int proximityRange;
+    final int losingProximityDivisor;
+    final int winningProximityDivisor;
+    final int bothMovesBonus;
+    final int div3Bonus;
+    final int div2OnlyPenalty;
+
+    private EvalWeights(int... values) {
+        if (values.length != NAMES.length) {
+            throw new IllegalArgumentException("Expected " + NAMES.length + " weights, got " + values.length);
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] < MIN[i] || values[i] > MAX[i]) {
+                throw new IllegalArgumentException(NAMES[i] + " must be between " + MIN[i] + " and " + MAX[i]);
+            }
+        }
+        this.proximityRange = values[0];
+        this.losingProximityDivisor = values[1];
+        this.winningProximityDivisor = values[2];
+        this.bothMovesBonus = values[3];
+        this.div3Bonus = values[4];
+        this.div2OnlyPenalty = values[5];
+    }
+
+    public static EvalWeights of(int... values) {
+        EvalWeights weights = new EvalWeights(values);
+        return weights.equals(DEFAULT) ? DEFAULT : weights;
+    }
+
+    public static EvalWeights parse(String text) {
+        String[] parts = text.trim().split("\\s*,\\s*");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) values[i] = Integer.parseInt(parts[i]);
+        return of(values);
+    }
+
+    public static EvalWeights load(Path file) throws IOException {
+        for (String line : Files.readAllLines(file)) {
+            if (!line.isBlank() && !line.trim().startsWith("#")) return parse(line);
+        }
+        throw new IOException("No weights in " + file);
+    }
+
+    public int[] toArray() {
+        return new int[]{proximityRange, losingProximityDivisor, winningProximityDivisor,
+                bothMovesBonus, div3Bonus, div2OnlyPenalty};
+    }
+
+    // FNV-1a over the values; stable across runs and JVMs.
+    public long getFingerprint() {
+        long hash = 0xCBF29CE484222325L;
+        for (int value : toArray()) {
+            hash ^= value;
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    public String getVersion() { return String.format(Locale.ROOT, "%016x", getFingerprint()); }
+
+    int evaluate(long state) {
+        return evaluate(PackedState.scoreDiff(state), PackedState.currentNum(state), PackedState.validMoves(state));
+    }
+
+    // Same shape as AIPlayer.evaluate(int, int, int), with the constants replaced by the weights.
+    int evaluate(int scoreDiff, int num, int possibleMoves) {
+        if (num <= GameLogic.GAME_END_THRESHOLD || possibleMoves == 0) return AIPlayer.terminalScore(scoreDiff);
+
+        int endProximity = Math.max(0, proximityRange - (num - GameLogic.GAME_END_THRESHOLD));
+        int proxFactor = 0;
+        if (scoreDiff < 0) proxFactor = -endProximity / losingProximityDivisor;
+        else if (scoreDiff > 0) proxFactor = endProximity / winningProximityDivisor;
+        boolean canDiv2 = (possibleMoves & PackedState.MOVE_DIV2) != 0;
+        boolean canDiv3 = (possibleMoves & PackedState.MOVE_DIV3) != 0;
+        int optsBonus = (canDiv2 && canDiv3) ? bothMovesBonus : 0;
+        int stratBonus = 0;
+        if (canDiv3) stratBonus += div3Bonus;
+        if (canDiv2 && !canDiv3) stratBonus -= div2OnlyPenalty;
+
+        return scoreDiff + proxFactor + optsBonus + stratBonus;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EvalWeights && Arrays.equals(toArray(), ((EvalWeights) o).toArray());
+    }
+
+    @Override
+    public int hashCode() { return Long.hashCode(getFingerprint()); }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int value : toArray()) sb.append(sb.length() == 0 ? "" : ",").append(value);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,311 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+// Post-game analysis. Every position of a finished game is scored on a work-stealing ForkJoinPool,
+// each pool thread with its own engine, and each ply reports the mover's best move and its score, the
+// score of the move actually played and the loss between them, all from the mover's side: player plies
+// are searched on the mirrored position. analyze() hands plies to a listener as they finish, in any
+// order; the batch mode analyzes whole GameRecordLog files with one game per task.
+// Usage: java GameAnalyzer [--engine EXACT] [--threads T] [--limit N] [--csv file] records.log...
+// --csv writes every ply that lost score.
+public class GameAnalyzer implements AutoCloseable {
+    static final String DEFAULT_ENGINE = "EXACT";
+    // A loss this large turned a won or drawn position into a worse game result (see AIPlayer.terminalScore).
+    static final int BLUNDER_LOSS = 10000;
+    static final int BATCH_GAMES = 256;
+    static final int LEAF_GAMES = 16;
+
+    public static class PlyAnalysis {
+        final int ply;
+        final boolean playerMove;
+        final int num;
+        final int playedMove;
+        final int playedScore;
+        final int bestMove;
+        final int bestScore;
+
+        PlyAnalysis(int ply, boolean playerMove, int num, int playedMove, int playedScore, int bestMove, int bestScore) {
+            this.ply = ply;
+            this.playerMove = playerMove;
+            this.num = num;
+            this.playedMove = playedMove;
+            this.playedScore = playedScore;
+            this.bestMove = bestMove;
+            this.bestScore = bestScore;
+        }
+
+        public int getPly() { return ply; }
+        public boolean isPlayerMove() { return playerMove; }
+        public int getNum() { return num; }
+        public int getPlayedMove() { return playedMove; }
+        public int getPlayedScore() { return playedScore; }
+        public int getBestMove() { return bestMove; }
+        public int getBestScore() { return bestScore; }
+        public int getLoss() { return bestScore - playedScore; }
+        public boolean isBlunder() { return getLoss() >= BLUNDER_LOSS; }
+
+        @Override
+        public String toString() {
+            String side = playerMove ? "Player" : "Computer";
+            if (getLoss() == 0) {
+                return String.format(Locale.ROOT, "Ply %d, %s at %d: /%d, best (score %d)",
+                        ply + 1, side, num, playedMove, playedScore);
+            }
+            return String.format(Locale.ROOT, "Ply %d, %s at %d: /%d (score %d), best /%d (score %d), loss %d%s",
+                    ply + 1, side, num, playedMove, playedScore, bestMove, bestScore, getLoss(),
+                    isBlunder() ? " - changed the result" : "");
+        }
+    }
+
+    public interface Listener {
+        void onPly(PlyAnalysis analysis);
+    }
+
+    // Totals per side, computer first. Merged in submission order, so batch results do not depend on timing.
+    public static class Summary {
+        long games;
+        final long[] plies = new long[2];
+        final long[] mistakes = new long[2];
+        final long[] blunders = new long[2];
+        final long[] totalLoss = new long[2];
+
+        void add(PlyAnalysis analysis) {
+            int side = analysis.playerMove ? 1 : 0;
+            plies[side]++;
+            if (analysis.getLoss() > 0) mistakes[side]++;
+            if (analysis.isBlunder()) blunders[side]++;
+            totalLoss[side] += analysis.getLoss();
+        }
+
+        void add(Summary other) {
+            games += other.games;
+            for (int i = 0; i < 2; i++) {
+                plies[i] += other.plies[i];
+                mistakes[i] += other.mistakes[i];
+                blunders[i] += other.blunders[i];
+                totalLoss[i] += other.totalLoss[i];
+            }
+        }
+
+        public String report() {
+            StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%d games%n", games));
+            String[] sides = {"Computer", "Player"};
+            for (int i = 0; i < 2; i++) {
+                sb.append(String.format(Locale.ROOT,
+                        "  %-8s %9d plies, %6.2f%% mistakes, %6.2f%% changed the result, average loss %.1f%n",
+                        sides[i], plies[i], percent(mistakes[i], plies[i]), percent(blunders[i], plies[i]),
+                        plies[i] == 0 ? 0.0 : totalLoss[i] / (double) plies[i]));
+            }
+            return sb.toString();
+        }
+
+        private static double percent(long count, long total) {
+            return total == 0 ? 0.0 : 100.0 * count / total;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<AIPlayer> engines;
+    private final boolean ownsPool;
+
+    public GameAnalyzer(Tournament.EngineSpec engine, int threads) {
+        this(engine, new ForkJoinPool(threads), true);
+    }
+
+    GameAnalyzer(Tournament.EngineSpec engine, ForkJoinPool pool, boolean ownsPool) {
+        if (engine.algorithm == AIPlayer.Algorithm.MCTS) {
+            throw new IllegalArgumentException("Analysis needs a minimax-style engine, not MCTS");
+        }
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.engines = ThreadLocal.withInitial(engine::create);
+    }
+
+    // The positions before each move of the record; the record's moves must be legal.
+    static List<GameState> positions(GameRecord record) {
+        List<GameState> positions = new ArrayList<>(record.getMoveCount());
+        GameState state = new GameState(record.getStartNum(), record.isPlayerStarts());
+        for (int ply = 0; ply < record.getMoveCount(); ply++) {
+            positions.add(state.clone());
+            if (!state.makeMove(record.getMove(ply))) {
+                throw new IllegalArgumentException("Illegal move at ply " + ply + " in " + record);
+            }
+        }
+        return positions;
+    }
+
+    // Runs on a pool thread: the engine belongs to that thread.
+    PlyAnalysis analyzePly(int ply, GameState position, int playedMove) {
+        boolean playerMove = position.isPlayerTurn();
+        int[] scores = engines.get().scoreMoves(playerMove ? position.mirrored() : position);
+        int bestMove = scores[1] > scores[0] ? 3 : 2;
+        return new PlyAnalysis(ply, playerMove, position.getCurrentNum(), playedMove, scores[playedMove - 2],
+                bestMove, scores[bestMove - 2]);
+    }
+
+    // One task per ply. The listener, if any, runs on the pool thread that finished the ply; the future
+    // completes with the plies in game order.
+    public CompletableFuture<List<PlyAnalysis>> analyze(GameRecord record, Listener listener) {
+        List<GameState> positions = positions(record);
+        List<CompletableFuture<PlyAnalysis>> plies = new ArrayList<>(positions.size());
+        for (int ply = 0; ply < positions.size(); ply++) {
+            int p = ply;
+            int playedMove = record.getMove(ply);
+            CompletableFuture<PlyAnalysis> future = CompletableFuture.supplyAsync(
+                    () -> analyzePly(p, positions.get(p), playedMove), pool);
+            if (listener != null) future = future.thenApply(analysis -> {
+                listener.onPly(analysis);
+                return analysis;
+            });
+            plies.add(future);
+        }
+        return CompletableFuture.allOf(plies.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<PlyAnalysis> result = new ArrayList<>(plies.size());
+            for (CompletableFuture<PlyAnalysis> ply : plies) result.add(ply.join());
+            return result;
+        });
+    }
+
+    List<PlyAnalysis> analyzeSequentially(GameRecord record) {
+        List<GameState> positions = positions(record);
+        List<PlyAnalysis> result = new ArrayList<>(positions.size());
+        for (int ply = 0; ply < positions.size(); ply++) result.add(analyzePly(ply, positions.get(ply), record.getMove(ply)));
+        return result;
+    }
+
+    // Splits a batch of games down to LEAF_GAMES; a game's plies run in order on one thread, where they
+    // share the engine's transposition table.
+    private class BatchTask extends RecursiveTask<List<List<PlyAnalysis>>> {
+        private static final long serialVersionUID = 1L;
+
+        private final GameRecord[] games;
+        private final int from;
+        private final int to;
+
+        BatchTask(GameRecord[] games, int from, int to) {
+            this.games = games;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<List<PlyAnalysis>> compute() {
+            if (to - from <= LEAF_GAMES) {
+                List<List<PlyAnalysis>> result = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) result.add(analyzeSequentially(games[i]));
+                return result;
+            }
+            int mid = (from + to) >>> 1;
+            BatchTask right = new BatchTask(games, mid, to);
+            right.fork();
+            List<List<PlyAnalysis>> result = new BatchTask(games, from, mid).compute();
+            result.addAll(right.join());
+            return result;
+        }
+    }
+
+    // Analyzes up to limit games of a record log. A few batches are kept in flight so reading never
+    // starves the pool; csv, if given, gets every ply that lost score.
+    public Summary analyzeLog(Path file, long limit, Writer csv) throws IOException {
+        Summary summary = new Summary();
+        ArrayDeque<ForkJoinTask<List<List<PlyAnalysis>>>> inFlight = new ArrayDeque<>();
+        ArrayDeque<Long> firstRecords = new ArrayDeque<>();
+        int maxInFlight = 2 * pool.getParallelism();
+        try (GameRecordReader reader = GameRecordReader.open(file)) {
+            long read = 0;
+            while (true) {
+                List<GameRecord> batch = new ArrayList<>(BATCH_GAMES);
+                GameRecord record = new GameRecord();
+                while (batch.size() < BATCH_GAMES && read < limit && reader.next(record)) {
+                    batch.add(record);
+                    record = new GameRecord();
+                    read++;
+                }
+                if (!batch.isEmpty()) {
+                    GameRecord[] games = batch.toArray(new GameRecord[0]);
+                    inFlight.addLast(pool.submit(new BatchTask(games, 0, games.length)));
+                    firstRecords.addLast(read - games.length);
+                }
+                if (inFlight.isEmpty()) break;
+                if (batch.isEmpty() || inFlight.size() >= maxInFlight) {
+                    collect(file, firstRecords.pollFirst(), inFlight.pollFirst().join(), summary, csv);
+                }
+            }
+        }
+        return summary;
+    }
+
+    private static void collect(Path file, long firstRecord, List<List<PlyAnalysis>> games, Summary summary,
+                                Writer csv) throws IOException {
+        for (int g = 0; g < games.size(); g++) {
+            summary.games++;
+            for (PlyAnalysis analysis : games.get(g)) {
+                summary.add(analysis);
+                if (csv != null && analysis.getLoss() > 0) {
+                    csv.write(String.join(",", file.toString(), String.valueOf(firstRecord + g),
+                            String.valueOf(analysis.ply + 1), analysis.playerMove ? "player" : "computer",
+                            String.valueOf(analysis.num), String.valueOf(analysis.playedMove),
+                            String.valueOf(analysis.playedScore), String.valueOf(analysis.bestMove),
+                            String.valueOf(analysis.bestScore), String.valueOf(analysis.getLoss())) + "\n");
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) pool.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        String engine = DEFAULT_ENGINE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long limit = Long.MAX_VALUE;
+        String csvFile = null;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--engine": engine = args[++i]; break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--limit": limit = Long.parseLong(args[++i]); break;
+                case "--csv": csvFile = args[++i]; break;
+                default:
+                    if (args[i].startsWith("--")) throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    files.add(Paths.get(args[i]));
+            }
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("Usage: java GameAnalyzer [--engine EXACT] [--threads T] [--limit N] "
+                    + "[--csv file] records.log...");
+        }
+
+        System.out.println("Engine: " + engine + ", threads: " + threads + ", files: " + files);
+        Summary total = new Summary();
+        long startTime = System.nanoTime();
+        try (GameAnalyzer analyzer = new GameAnalyzer(Tournament.EngineSpec.parse(engine), threads);
+             BufferedWriter csv = csvFile == null ? null : Files.newBufferedWriter(Paths.get(csvFile))) {
+            if (csv != null) csv.write("file,record,ply,mover,num,played,played_score,best,best_score,loss\n");
+            for (Path file : files) {
+                if (total.games >= limit) break;
+                total.add(analyzer.analyzeLog(file, limit - total.games, csv));
+            }
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        long plies = total.plies[0] + total.plies[1];
+        System.out.print(total.report());
+        System.out.printf(Locale.ROOT, "%d plies in %.3f s (%.0f games/s, %.0f plies/s)%n",
+                plies, seconds, total.games / Math.max(seconds, 1e-9), plies / Math.max(seconds, 1e-9));
+    }
+}
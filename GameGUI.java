@@ -1,479 +1,734 @@
-import javax.swing.*;
-import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.util.List;
-import java.util.Objects;
-import java.util.concurrent.ExecutionException;
-
-public class GameGUI extends JFrame implements ActionListener {
-
-    private GameState currentGameState;
-    private AIPlayer computerPlayer;
-    private AIPlayer experimentAI;
-
-    private JComboBox<Integer> numberSelector;
-    private JRadioButton humanStartsRadio, computerStartsRadio;
-    private JRadioButton minimaxRadio, alphaBetaRadio;
-    private JButton startGameButton;
-    private JButton runExperimentsButton;
-    private JPanel setupPanel;
-    private boolean setupComplete = false;
-
-    private JLabel currentNumberLabel;
-    private JLabel playerScoreLabel, computerScoreLabel;
-    private JLabel turnLabel;
-    private JButton divideBy2Button, divideBy3Button;
-    private JTextArea messageArea;
-    private JButton newGameButton;
-    private JPanel gamePanel;
-    private JPanel controlPanel;
-
-    private static final int FIXED_AI_DEPTH = 6;
-    private static final int NUM_EXPERIMENTS = 10;
-
-    public GameGUI() {
-        super("Divide and Conquer Game");
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLayout(new BorderLayout(10, 10));
-
-        setupPanel = createSetupPanel();
-        gamePanel = createGamePanel();
-        controlPanel = createControlPanel();
-
-        add(setupPanel, BorderLayout.CENTER);
-
-        pack();
-        setMinimumSize(getPreferredSize());
-        setLocationRelativeTo(null);
-        setVisible(true);
-    }
-
-    private JPanel createSetupPanel() {
-        JPanel panel = new JPanel(new GridBagLayout());
-        panel.setBorder(BorderFactory.createTitledBorder("Game Setup"));
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(5, 5, 5, 5);
-        gbc.anchor = GridBagConstraints.WEST;
-
-        gbc.gridx = 0;
-        gbc.gridy = 0;
-        panel.add(new JLabel("Choose Starting Number:"), gbc);
-        numberSelector = new JComboBox<>();
-        populateStartNumbers();
-        gbc.gridx = 1;
-        gbc.gridwidth = 2;
-        gbc.fill = GridBagConstraints.HORIZONTAL;
-        panel.add(numberSelector, gbc);
-        gbc.gridwidth = 1;
-        gbc.fill = GridBagConstraints.NONE;
-
-        gbc.gridx = 0;
-        gbc.gridy++;
-        panel.add(new JLabel("Who Starts?"), gbc);
-        humanStartsRadio = new JRadioButton("Player", true);
-        computerStartsRadio = new JRadioButton("Computer");
-        ButtonGroup startGroup = new ButtonGroup();
-        startGroup.add(humanStartsRadio);
-        startGroup.add(computerStartsRadio);
-        JPanel playerPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
-        playerPanel.add(humanStartsRadio);
-        playerPanel.add(computerStartsRadio);
-        gbc.gridx = 1;
-        gbc.gridwidth = 2;
-        panel.add(playerPanel, gbc);
-        gbc.gridwidth = 1;
-
-        gbc.gridx = 0;
-        gbc.gridy++;
-        panel.add(new JLabel("Computer Algorithm:"), gbc);
-        minimaxRadio = new JRadioButton("Minimax", true);
-        alphaBetaRadio = new JRadioButton("Alpha-Beta");
-        ButtonGroup algoGroup = new ButtonGroup();
-        algoGroup.add(minimaxRadio);
-        algoGroup.add(alphaBetaRadio);
-        JPanel algoPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
-        algoPanel.add(minimaxRadio);
-        algoPanel.add(alphaBetaRadio);
-        gbc.gridx = 1;
-        gbc.gridwidth = 2;
-        panel.add(algoPanel, gbc);
-        gbc.gridwidth = 1;
-
-        gbc.gridx = 0;
-        gbc.gridy++;
-        gbc.gridwidth = 3;
-        gbc.anchor = GridBagConstraints.CENTER;
-        gbc.fill = GridBagConstraints.HORIZONTAL;
-        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        startGameButton = new JButton("Start Game");
-        startGameButton.addActionListener(this);
-        runExperimentsButton = new JButton("Run Experiments (Depth " + FIXED_AI_DEPTH + ")");
-        runExperimentsButton.addActionListener(this);
-        buttonPanel.add(startGameButton);
-        buttonPanel.add(runExperimentsButton);
-        panel.add(buttonPanel, gbc);
-
-        return panel;
-    }
-    private void populateStartNumbers() {
-        numberSelector.removeAllItems();
-        List<Integer> startNumbers = GameLogic.getStartNumbers();
-        for (Integer num : startNumbers) {
-            numberSelector.addItem(num);
-        }
-    }
-
-    private JPanel createGamePanel() {
-        JPanel panel = new JPanel(new GridBagLayout());
-        panel.setBorder(BorderFactory.createTitledBorder("Game Play"));
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(5, 10, 5, 10);
-        gbc.fill = GridBagConstraints.HORIZONTAL;
-
-        gbc.gridx = 0; gbc.gridy = 0;
-        panel.add(new JLabel("Current Number:"), gbc);
-        currentNumberLabel = new JLabel("---", JLabel.CENTER);
-        currentNumberLabel.setFont(currentNumberLabel.getFont().deriveFont(Font.BOLD, 20f));
-        gbc.gridx = 1; gbc.gridwidth = 2;
-        panel.add(currentNumberLabel, gbc);
-
-        gbc.gridy++;
-        gbc.gridx = 0; gbc.gridwidth = 1;
-        panel.add(new JLabel("Player Score:"), gbc);
-        playerScoreLabel = new JLabel("0", JLabel.CENTER);
-        gbc.gridx = 1;
-        panel.add(playerScoreLabel, gbc);
-        gbc.gridx = 2;
-        panel.add(new JLabel("Computer Score:"), gbc);
-        computerScoreLabel = new JLabel("0", JLabel.CENTER);
-        gbc.gridx = 3;
-        panel.add(computerScoreLabel, gbc);
-
-        gbc.gridy++;
-        gbc.gridx = 0; gbc.gridwidth = 4; gbc.anchor = GridBagConstraints.CENTER;
-        turnLabel = new JLabel("Turn: ---");
-        turnLabel.setFont(turnLabel.getFont().deriveFont(Font.ITALIC));
-        panel.add(turnLabel, gbc);
-        gbc.anchor = GridBagConstraints.WEST;
-
-        gbc.gridy++;
-        gbc.gridx = 0; gbc.gridwidth = 2;
-        divideBy2Button = new JButton("Divide by 2");
-        divideBy2Button.addActionListener(this);
-        panel.add(divideBy2Button, gbc);
-
-        gbc.gridx = 2; gbc.gridwidth = 2;
-        divideBy3Button = new JButton("Divide by 3");
-        divideBy3Button.addActionListener(this);
-        panel.add(divideBy3Button, gbc);
-
-        gbc.gridy++;
-        gbc.gridx = 0; gbc.gridwidth = 4; gbc.fill = GridBagConstraints.BOTH;
-        gbc.weightx = 1.0; gbc.weighty = 1.0;
-        messageArea = new JTextArea(6, 30);
-        messageArea.setEditable(false);
-        messageArea.setLineWrap(true);
-        messageArea.setWrapStyleWord(true);
-        JScrollPane scrollPane = new JScrollPane(messageArea);
-        panel.add(scrollPane, gbc);
-
-        return panel;
-    }
-
-    private JPanel createControlPanel() {
-        JPanel panel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        newGameButton = new JButton("New Game");
-        newGameButton.addActionListener(this);
-        newGameButton.setVisible(false);
-        panel.add(newGameButton);
-        return panel;
-    }
-    private void startGame() {
-        int startNum = (Integer) Objects.requireNonNull(numberSelector.getSelectedItem());
-        boolean playerStarts = humanStartsRadio.isSelected();
-        AIPlayer.Algorithm algo = minimaxRadio.isSelected() ? AIPlayer.Algorithm.MINIMAX : AIPlayer.Algorithm.ALPHA_BETA;
-        int depth = FIXED_AI_DEPTH;
-
-        currentGameState = new GameState(startNum, playerStarts);
-        computerPlayer = new AIPlayer(algo, depth);
-
-        setupComplete = true;
-        getContentPane().remove(setupPanel);
-        add(gamePanel, BorderLayout.CENTER);
-        add(controlPanel, BorderLayout.SOUTH);
-        newGameButton.setVisible(false);
-
-        messageArea.setText("Game started with number " + startNum + ".\nAI Difficulty (Depth): " + depth + "\n");
-        computerPlayer.resetGameStats();
-        updateUIState();
-
-        if (!currentGameState.isPlayerTurn()) {
-            appendMessage("Computer starts.");
-            triggerComputerMove();
-        } else {
-            appendMessage("Player starts.");
-            setPlayerControlsEnabled(true);
-        }
-
-        revalidate();
-        repaint();
-        pack();
-    }
-
-    private void resetForNewGame() {
-        currentGameState = null;
-        computerPlayer = null;
-        experimentAI = null;
-        setupComplete = false;
-
-        getContentPane().remove(gamePanel);
-        getContentPane().remove(controlPanel);
-        add(setupPanel, BorderLayout.CENTER);
-
-        populateStartNumbers();
-        messageArea.setText("");
-
-        revalidate();
-        repaint();
-        pack();
-    }
-
-    private void updateUIState() {
-        if (currentGameState == null) return;
-
-        currentNumberLabel.setText(String.valueOf(currentGameState.getCurrentNum()));
-        playerScoreLabel.setText(String.valueOf(currentGameState.getPlayerScore()));
-        computerScoreLabel.setText(String.valueOf(currentGameState.getCompScore()));
-
-        if (currentGameState.isGameOver()) {
-            turnLabel.setText("Game Over");
-            setPlayerControlsEnabled(false);
-        } else {
-            turnLabel.setText("Turn: " + (currentGameState.isPlayerTurn() ? "Player" : "Computer"));
-            setPlayerControlsEnabled(currentGameState.isPlayerTurn());
-        }
-    }
-
-    private void appendMessage(String message) {
-        if (SwingUtilities.isEventDispatchThread()) {
-            messageArea.append(message + "\n");
-            messageArea.setCaretPosition(messageArea.getDocument().getLength());
-        } else {
-            SwingUtilities.invokeLater(() -> {
-                messageArea.append(message + "\n");
-                messageArea.setCaretPosition(messageArea.getDocument().getLength());
-            });
-        }
-    }
-    private void triggerComputerMove() {
-        if (currentGameState == null || currentGameState.isPlayerTurn() || currentGameState.isGameOver()) return;
-
-        setPlayerControlsEnabled(false);
-        turnLabel.setText("Turn: Computer (Thinking...)");
-
-        SwingWorker<Move, Void> worker = new SwingWorker<>() {
-            @Override
-            protected Move doInBackground() {
-                return computerPlayer.findBestMove(currentGameState);
-            }
-
-            @Override
-            protected void done() {
-                try {
-                    Move chosenMove = get();
-                    if (chosenMove != null) {
-                        appendMessage("Computer chose: " + chosenMove +
-                                " (Nodes: " + computerPlayer.getNodesChecked() +
-                                ", Time: " + computerPlayer.getMoveTimeMs() + "ms)");
-                        currentGameState.makeMove(chosenMove.getDivisor());
-                    } else {
-                        appendMessage("Computer cannot make a move. Forcing end.");
-                        currentGameState.setCurrentNum(GameLogic.GAME_END_THRESHOLD);
-                    }
-
-                    updateUIState();
-                    if (currentGameState.isGameOver()) {
-                        endGame();
-                    } else {
-                        setPlayerControlsEnabled(true);
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    appendMessage("Error during computer's turn: " + e.getMessage());
-                }
-            }
-        };
-        worker.execute();
-    }
-
-    private void setPlayerControlsEnabled(boolean isEnabled) {
-        if (isEnabled && currentGameState != null && currentGameState.isPlayerTurn()) {
-            divideBy2Button.setEnabled(currentGameState.isMoveValid(2));
-            divideBy3Button.setEnabled(currentGameState.isMoveValid(3));
-        } else {
-            divideBy2Button.setEnabled(false);
-            divideBy3Button.setEnabled(false);
-        }
-    }
-
-    private void handlePlayerMove(int divisor) {
-        if (currentGameState == null || !currentGameState.isPlayerTurn() || currentGameState.isGameOver()) return;
-
-        if (!currentGameState.isMoveValid(divisor)) {
-            appendMessage("Invalid move: " + currentGameState.getCurrentNum() + " not divisible by " + divisor + ".");
-            return;
-        }
-
-        appendMessage("Player divides by " + divisor + ".");
-        currentGameState.makeMove(divisor);
-        updateUIState();
-
-        if (currentGameState.isGameOver()) {
-            endGame();
-        } else {
-            triggerComputerMove();
-        }
-    }
-
-    private void endGame() {
-        setPlayerControlsEnabled(false);
-        int winnerCode = GameLogic.checkWinner(currentGameState);
-        String endMessage = "\n--- GAME OVER ---\n";
-        endMessage += "Final Number: " + currentGameState.getCurrentNum() + "\n";
-        endMessage += "Final Score -> Player: " + currentGameState.getPlayerScore() +
-                " | Computer: " + currentGameState.getCompScore() + "\n";
-
-        if (winnerCode == 1) endMessage += ">>> PLAYER WINS! <<<";
-        else if (winnerCode == -1) endMessage += ">>> COMPUTER WINS! <<<";
-        else endMessage += ">>> IT'S A DRAW! <<<";
-
-        appendMessage(endMessage);
-        newGameButton.setVisible(true);
-    }
-    private void runExperiments() {
-        startGameButton.setEnabled(false);
-        runExperimentsButton.setEnabled(false);
-        newGameButton.setVisible(false);
-        if (divideBy2Button != null) divideBy2Button.setEnabled(false);
-        if (divideBy3Button != null) divideBy3Button.setEnabled(false);
-
-        appendMessage("\n--- Running Experiments ---");
-        appendMessage("This might take a while...");
-
-        AIPlayer.Algorithm algo = minimaxRadio.isSelected() ? AIPlayer.Algorithm.MINIMAX : AIPlayer.Algorithm.ALPHA_BETA;
-        int depth = FIXED_AI_DEPTH;
-        int startNum = (Integer) Objects.requireNonNull(numberSelector.getSelectedItem());
-
-        SwingWorker<String, String> experimentWorker = new SwingWorker<>() {
-            @Override
-            protected String doInBackground() {
-                publish("Starting " + NUM_EXPERIMENTS + " games for " + algo + " at fixed depth " + depth + "...");
-                experimentAI = new AIPlayer(algo, depth);
-                AIPlayer opponentAI = new AIPlayer(algo, depth);
-
-                int playerWins = 0;
-                int compWins = 0;
-                int draws = 0;
-                long totalNodesSum = 0;
-                long totalAvgTimeSum = 0;
-
-                for (int i = 1; i <= NUM_EXPERIMENTS; i++) {
-                    boolean player1Starts = (i % 2 == 1);
-                    GameState expState = new GameState(startNum, player1Starts);
-                    experimentAI.resetGameStats();
-                    opponentAI.resetGameStats();
-
-                    while (!expState.isGameOver()) {
-                        AIPlayer currentTurnAI = expState.isPlayerTurn() ? opponentAI : experimentAI;
-                        Move move = currentTurnAI.findBestMove(expState);
-                        if (move != null) {
-                            expState.makeMove(move.getDivisor());
-                        } else {
-                            expState.setCurrentNum(GameLogic.GAME_END_THRESHOLD);
-                        }
-                    }
-
-                    int winner = GameLogic.checkWinner(expState);
-                    if (winner == 1) playerWins++;
-                    else if (winner == -1) compWins++;
-                    else draws++;
-
-                    totalNodesSum += experimentAI.getTotalNodesThisGame();
-                    totalAvgTimeSum += experimentAI.getAvgTimeThisGame();
-
-                    publish("Game " + i + " finished. Winner: " + (winner == 1 ? "Opponent" : (winner == -1 ? "ExperimentAI" : "Draw")) +
-                            ", Nodes: " + experimentAI.getTotalNodesThisGame() +
-                            ", AvgTime: " + experimentAI.getAvgTimeThisGame() + "ms");
-                }
-
-                long avgNodes = (NUM_EXPERIMENTS == 0) ? 0 : totalNodesSum / NUM_EXPERIMENTS;
-                long avgTime = (NUM_EXPERIMENTS == 0) ? 0 : totalAvgTimeSum / NUM_EXPERIMENTS;
-
-                return String.format(
-                        "\n--- Experiment Results (%d Games) ---\n" +
-                                "Algorithm: %s, Fixed Depth: %d\n" +
-                                "Experiment AI Wins: %d\n" +
-                                "Opponent AI Wins: %d\n" +
-                                "Draws: %d\n" +
-                                "Avg Nodes Visited per Game (by Exp AI): %d\n" +
-                                "Avg Move Time per Game (Avg for Exp AI): %d ms\n" +
-                                "--------------------------------------",
-                        NUM_EXPERIMENTS, algo, depth,
-                        compWins, playerWins, draws, avgNodes, avgTime
-                );
-            }
-
-            @Override
-            protected void process(List<String> chunks) {
-                for (String message : chunks) {
-                    appendMessage(message);
-                }
-            }
-
-            @Override
-            protected void done() {
-                startGameButton.setEnabled(true);
-                runExperimentsButton.setEnabled(true);
-                if (setupComplete && currentGameState != null) {
-                    updateUIState();
-                    newGameButton.setVisible(currentGameState.isGameOver());
-                }
-
-                try {
-                    String finalResults = get();
-                    appendMessage(finalResults);
-                    JOptionPane.showMessageDialog(GameGUI.this,
-                            finalResults,
-                            "Experiment Results",
-                            JOptionPane.INFORMATION_MESSAGE);
-                } catch (InterruptedException | ExecutionException e) {
-                    e.printStackTrace();
-                    appendMessage("\nError during experiments: " + e.getMessage());
-                    JOptionPane.showMessageDialog(GameGUI.this,
-                            "Error running experiments: " + e.getMessage(),
-                            "Experiment Error",
-                            JOptionPane.ERROR_MESSAGE);
-                }
-            }
-        };
-        experimentWorker.execute();
-    }
-
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        Object source = e.getSource();
-
-        if (source == startGameButton) {
-            startGame();
-        } else if (source == newGameButton) {
-            resetForNewGame();
-        } else if (source == divideBy2Button) {
-            handlePlayerMove(2);
-        } else if (source == divideBy3Button) {
-            handlePlayerMove(3);
-        } else if (source == runExperimentsButton) {
-            runExperiments();
-        }
-    }
-}
\ No newline at end of file
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class GameGUI extends JFrame implements ActionListener {
+
+    private GameState currentGameState;
+    private AIPlayer computerPlayer;
+    private AIPlayer experimentAI;
+    private CancellationToken computerSearch;
+    private final OpeningBook openingBook = OpeningBook.openDefault();
+    private final GameOutcomeCache outcomeCache = new GameOutcomeCache();
+    // After each game every position is scored in the background; see analyzeGame().
+    private final GameAnalyzer analyzer = new GameAnalyzer(Tournament.EngineSpec.parse(GameAnalyzer.DEFAULT_ENGINE),
+            Runtime.getRuntime().availableProcessors());
+    private GameRecord gameRecord;
+    private volatile GameRecord analyzedRecord;
+
+    // Pondering: while the player thinks, one engine per possible player move (index divisor - 2) searches
+    // the computer's reply. Each engine has its own single-thread executor, so a cancelled search that is
+    // still unwinding never overlaps the next one on the same engine. The search taken for the player's
+    // move stays reachable until the computer has moved, so New Game can stop it too.
+    private final AIPlayer[] ponderers = new AIPlayer[2];
+    private final ExecutorService[] ponderExecutors = {newPonderExecutor(), newPonderExecutor()};
+    private final List<Future<Move>> ponderResults = new ArrayList<>(Arrays.asList(null, null));
+    private final CancellationToken[] ponderTokens = new CancellationToken[2];
+    private Future<Move> takenPonderResult;
+    private CancellationToken takenPonderToken;
+
+    private JComboBox<Integer> numberSelector;
+    private JRadioButton humanStartsRadio, computerStartsRadio;
+    private JRadioButton minimaxRadio, alphaBetaRadio, pvsRadio, mtdfRadio, exactRadio, mctsRadio;
+    private JButton startGameButton;
+    private JButton runExperimentsButton;
+    private JCheckBox randomTiesCheckBox;
+    private JPanel setupPanel;
+    private boolean setupComplete = false;
+
+    private JLabel currentNumberLabel;
+    private JLabel playerScoreLabel, computerScoreLabel;
+    private JLabel turnLabel;
+    private JButton divideBy2Button, divideBy3Button;
+    private JTextArea messageArea;
+    private MessageLog messageLog;
+    private JButton newGameButton;
+    private JPanel gamePanel;
+    private JPanel controlPanel;
+
+    private static final int FIXED_AI_DEPTH = 6;
+    static final int NUM_EXPERIMENTS = 10;
+    private static final int EXPERIMENT_TT_MB = 4;
+    private static final long EXPERIMENT_TIE_SEED = 1;
+
+    private final int numExperiments;
+
+    public GameGUI() {
+        this(NUM_EXPERIMENTS, MessageLog.DEFAULT_CAPACITY, null);
+    }
+
+    // The message area keeps the last logCapacity messages; with a logFile every message is also written there.
+    public GameGUI(int numExperiments, int logCapacity, Path logFile) {
+        super("Divide and Conquer Game");
+        this.numExperiments = numExperiments;
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLayout(new BorderLayout(10, 10));
+
+        setupPanel = createSetupPanel();
+        gamePanel = createGamePanel();
+        controlPanel = createControlPanel();
+        messageLog = openMessageLog(logCapacity, logFile);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                analyzer.close();
+                try {
+                    messageLog.close();
+                } catch (IOException ex) {
+                    System.err.println("Could not finish the log file: " + ex.getMessage());
+                }
+            }
+        });
+
+        add(setupPanel, BorderLayout.CENTER);
+
+        pack();
+        setMinimumSize(getPreferredSize());
+        setLocationRelativeTo(null);
+        setVisible(true);
+    }
+
+    private JPanel createSetupPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(BorderFactory.createTitledBorder("Game Setup"));
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        gbc.anchor = GridBagConstraints.WEST;
+
+        gbc.gridx = 0;
+        gbc.gridy = 0;
+        panel.add(new JLabel("Choose Starting Number:"), gbc);
+        numberSelector = new JComboBox<>();
+        populateStartNumbers();
+        gbc.gridx = 1;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        panel.add(numberSelector, gbc);
+        gbc.gridwidth = 1;
+        gbc.fill = GridBagConstraints.NONE;
+
+        gbc.gridx = 0;
+        gbc.gridy++;
+        panel.add(new JLabel("Who Starts?"), gbc);
+        humanStartsRadio = new JRadioButton("Player", true);
+        computerStartsRadio = new JRadioButton("Computer");
+        ButtonGroup startGroup = new ButtonGroup();
+        startGroup.add(humanStartsRadio);
+        startGroup.add(computerStartsRadio);
+        JPanel playerPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        playerPanel.add(humanStartsRadio);
+        playerPanel.add(computerStartsRadio);
+        gbc.gridx = 1;
+        gbc.gridwidth = 2;
+        panel.add(playerPanel, gbc);
+        gbc.gridwidth = 1;
+
+        gbc.gridx = 0;
+        gbc.gridy++;
+        panel.add(new JLabel("Computer Algorithm:"), gbc);
+        minimaxRadio = new JRadioButton("Minimax", true);
+        alphaBetaRadio = new JRadioButton("Alpha-Beta");
+        pvsRadio = new JRadioButton("PVS");
+        mtdfRadio = new JRadioButton("MTD(f)");
+        exactRadio = new JRadioButton("Exact");
+        mctsRadio = new JRadioButton("MCTS");
+        ButtonGroup algoGroup = new ButtonGroup();
+        algoGroup.add(minimaxRadio);
+        algoGroup.add(alphaBetaRadio);
+        algoGroup.add(pvsRadio);
+        algoGroup.add(mtdfRadio);
+        algoGroup.add(exactRadio);
+        algoGroup.add(mctsRadio);
+        JPanel algoPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        algoPanel.add(minimaxRadio);
+        algoPanel.add(alphaBetaRadio);
+        algoPanel.add(pvsRadio);
+        algoPanel.add(mtdfRadio);
+        algoPanel.add(exactRadio);
+        algoPanel.add(mctsRadio);
+        gbc.gridx = 1;
+        gbc.gridwidth = 2;
+        panel.add(algoPanel, gbc);
+        gbc.gridwidth = 1;
+
+        gbc.gridx = 0;
+        gbc.gridy++;
+        gbc.gridwidth = 3;
+        gbc.anchor = GridBagConstraints.CENTER;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        startGameButton = new JButton("Start Game");
+        startGameButton.addActionListener(this);
+        runExperimentsButton = new JButton("Run Experiments (Depth " + FIXED_AI_DEPTH + ")");
+        runExperimentsButton.addActionListener(this);
+        randomTiesCheckBox = new JCheckBox("Random tie-breaks");
+        randomTiesCheckBox.setToolTipText("Experiments break ties with a seeded coin flip, so every game differs");
+        buttonPanel.add(startGameButton);
+        buttonPanel.add(runExperimentsButton);
+        buttonPanel.add(randomTiesCheckBox);
+        panel.add(buttonPanel, gbc);
+
+        return panel;
+    }
+    private AIPlayer.Algorithm getSelectedAlgorithm() {
+        if (minimaxRadio.isSelected()) return AIPlayer.Algorithm.MINIMAX;
+        if (pvsRadio.isSelected()) return AIPlayer.Algorithm.PVS;
+        if (mtdfRadio.isSelected()) return AIPlayer.Algorithm.MTDF;
+        if (exactRadio.isSelected()) return AIPlayer.Algorithm.EXACT;
+        if (mctsRadio.isSelected()) return AIPlayer.Algorithm.MCTS;
+        return AIPlayer.Algorithm.ALPHA_BETA;
+    }
+
+    private void populateStartNumbers() {
+        numberSelector.removeAllItems();
+        List<Integer> startNumbers = GameLogic.getStartNumbers();
+        for (Integer num : startNumbers) {
+            numberSelector.addItem(num);
+        }
+    }
+
+    private JPanel createGamePanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(BorderFactory.createTitledBorder("Game Play"));
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 10, 5, 10);
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+
+        gbc.gridx = 0; gbc.gridy = 0;
+        panel.add(new JLabel("Current Number:"), gbc);
+        currentNumberLabel = new JLabel("---", JLabel.CENTER);
+        currentNumberLabel.setFont(currentNumberLabel.getFont().deriveFont(Font.BOLD, 20f));
+        gbc.gridx = 1; gbc.gridwidth = 2;
+        panel.add(currentNumberLabel, gbc);
+
+        gbc.gridy++;
+        gbc.gridx = 0; gbc.gridwidth = 1;
+        panel.add(new JLabel("Player Score:"), gbc);
+        playerScoreLabel = new JLabel("0", JLabel.CENTER);
+        gbc.gridx = 1;
+        panel.add(playerScoreLabel, gbc);
+        gbc.gridx = 2;
+        panel.add(new JLabel("Computer Score:"), gbc);
+        computerScoreLabel = new JLabel("0", JLabel.CENTER);
+        gbc.gridx = 3;
+        panel.add(computerScoreLabel, gbc);
+
+        gbc.gridy++;
+        gbc.gridx = 0; gbc.gridwidth = 4; gbc.anchor = GridBagConstraints.CENTER;
+        turnLabel = new JLabel("Turn: ---");
+        turnLabel.setFont(turnLabel.getFont().deriveFont(Font.ITALIC));
+        panel.add(turnLabel, gbc);
+        gbc.anchor = GridBagConstraints.WEST;
+
+        gbc.gridy++;
+        gbc.gridx = 0; gbc.gridwidth = 2;
+        divideBy2Button = new JButton("Divide by 2");
+        divideBy2Button.addActionListener(this);
+        panel.add(divideBy2Button, gbc);
+
+        gbc.gridx = 2; gbc.gridwidth = 2;
+        divideBy3Button = new JButton("Divide by 3");
+        divideBy3Button.addActionListener(this);
+        panel.add(divideBy3Button, gbc);
+
+        gbc.gridy++;
+        gbc.gridx = 0; gbc.gridwidth = 4; gbc.fill = GridBagConstraints.BOTH;
+        gbc.weightx = 1.0; gbc.weighty = 1.0;
+        messageArea = new JTextArea(6, 30);
+        messageArea.setEditable(false);
+        messageArea.setLineWrap(true);
+        messageArea.setWrapStyleWord(true);
+        JScrollPane scrollPane = new JScrollPane(messageArea);
+        panel.add(scrollPane, gbc);
+
+        return panel;
+    }
+
+    private MessageLog openMessageLog(int capacity, Path logFile) {
+        try {
+            return new MessageLog(messageArea, capacity, logFile);
+        } catch (IOException e) {
+            try {
+                MessageLog log = new MessageLog(messageArea, capacity, null);
+                log.append("Cannot write log file " + logFile + ": " + e.getMessage());
+                return log;
+            } catch (IOException impossible) {
+                throw new IllegalStateException(impossible);
+            }
+        }
+    }
+
+    private JPanel createControlPanel() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        newGameButton = new JButton("New Game");
+        newGameButton.addActionListener(this);
+        newGameButton.setVisible(false);
+        panel.add(newGameButton);
+        return panel;
+    }
+    private void startGame() {
+        int startNum = (Integer) Objects.requireNonNull(numberSelector.getSelectedItem());
+        boolean playerStarts = humanStartsRadio.isSelected();
+        AIPlayer.Algorithm algo = getSelectedAlgorithm();
+        int depth = FIXED_AI_DEPTH;
+
+        currentGameState = new GameState(startNum, playerStarts);
+        gameRecord = new GameRecord(startNum, playerStarts);
+        computerPlayer = new AIPlayer(algo, depth);
+        computerPlayer.setOpeningBook(openingBook);
+        computerPlayer.registerMetrics("GUI " + algo + ":" + depth);
+        for (int i = 0; i < ponderers.length; i++) {
+            ponderers[i] = new AIPlayer(algo, depth);
+            ponderers[i].setOpeningBook(openingBook);
+            ponderers[i].registerMetrics("GUI ponder /" + (i + 2) + " " + algo + ":" + depth);
+        }
+        GameMetrics.gameStarted();
+
+        setupComplete = true;
+        getContentPane().remove(setupPanel);
+        add(gamePanel, BorderLayout.CENTER);
+        add(controlPanel, BorderLayout.SOUTH);
+        newGameButton.setVisible(false);
+
+        messageLog.clear();
+        messageLog.append("Game started with number " + startNum + ".\nAI Difficulty (Depth): " + depth);
+        computerPlayer.resetGameStats();
+        updateUIState();
+
+        if (!currentGameState.isPlayerTurn()) {
+            appendMessage("Computer starts.");
+            triggerComputerMove();
+        } else {
+            appendMessage("Player starts.");
+            setPlayerControlsEnabled(true);
+            startPondering();
+        }
+
+        revalidate();
+        repaint();
+        pack();
+    }
+
+    private void resetForNewGame() {
+        if (computerSearch != null) computerSearch.cancel();
+        if (takenPonderResult != null) takenPonderResult.cancel(true);
+        takenPonderResult = null;
+        takenPonderToken = null;
+        cancelPondering();
+        if (currentGameState != null && !currentGameState.isGameOver()) GameMetrics.gameAbandoned();
+        if (computerPlayer != null) computerPlayer.unregisterMetrics();
+        for (AIPlayer ponderer : ponderers) {
+            if (ponderer != null) ponderer.unregisterMetrics();
+        }
+        currentGameState = null;
+        analyzedRecord = null;
+        computerPlayer = null;
+        experimentAI = null;
+        setupComplete = false;
+
+        getContentPane().remove(gamePanel);
+        getContentPane().remove(controlPanel);
+        add(setupPanel, BorderLayout.CENTER);
+
+        populateStartNumbers();
+        messageLog.clear();
+
+        revalidate();
+        repaint();
+        pack();
+    }
+
+    private void updateUIState() {
+        if (currentGameState == null) return;
+
+        currentNumberLabel.setText(String.valueOf(currentGameState.getCurrentNum()));
+        playerScoreLabel.setText(String.valueOf(currentGameState.getPlayerScore()));
+        computerScoreLabel.setText(String.valueOf(currentGameState.getCompScore()));
+
+        if (currentGameState.isGameOver()) {
+            turnLabel.setText("Game Over");
+            setPlayerControlsEnabled(false);
+        } else {
+            turnLabel.setText("Turn: " + (currentGameState.isPlayerTurn() ? "Player" : "Computer"));
+            setPlayerControlsEnabled(currentGameState.isPlayerTurn());
+        }
+    }
+
+    // Safe from any thread; the message shows up with the log's next frame.
+    private void appendMessage(String message) {
+        messageLog.append(message);
+    }
+    private static ExecutorService newPonderExecutor() {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "ponder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void startPondering() {
+        for (int divisor = 2; divisor <= 3; divisor++) {
+            if (!currentGameState.isMoveValid(divisor)) continue;
+            GameState reply = currentGameState.clone();
+            reply.makeMove(divisor);
+            if (reply.isGameOver()) continue;
+            AIPlayer ponderer = ponderers[divisor - 2];
+            CancellationToken token = new CancellationToken();
+            ponderTokens[divisor - 2] = token;
+            ponderResults.set(divisor - 2, ponderExecutors[divisor - 2].submit(
+                    () -> ponderer.findBestMove(reply, null, token, null)));
+        }
+    }
+
+    // Hands back the pondered reply to the player's move and cancels the search for the other one.
+    private Future<Move> takePonderResult(int divisor) {
+        takenPonderResult = ponderResults.get(divisor - 2);
+        takenPonderToken = takenPonderResult != null ? ponderTokens[divisor - 2] : null;
+        ponderResults.set(divisor - 2, null);
+        ponderTokens[divisor - 2] = null;
+        cancelPondering();
+        return takenPonderResult;
+    }
+
+    private void cancelPondering() {
+        for (int i = 0; i < ponderResults.size(); i++) {
+            if (ponderTokens[i] != null) ponderTokens[i].cancel();
+            if (ponderResults.get(i) != null) ponderResults.get(i).cancel(true);
+            ponderResults.set(i, null);
+            ponderTokens[i] = null;
+        }
+    }
+
+    private void triggerComputerMove() {
+        triggerComputerMove(null, computerPlayer);
+    }
+
+    private void triggerComputerMove(Future<Move> pondered, AIPlayer searcher) {
+        if (currentGameState == null || currentGameState.isPlayerTurn() || currentGameState.isGameOver()) return;
+
+        setPlayerControlsEnabled(false);
+        turnLabel.setText("Turn: Computer (Thinking...)");
+        GameState searchState = currentGameState;
+        // A pondered search keeps its own token, so cancelling computerSearch stops it as well.
+        CancellationToken cancellation = pondered != null ? takenPonderToken : new CancellationToken();
+        computerSearch = cancellation;
+
+        SwingWorker<Move, AIPlayer.SearchProgress> worker = new SwingWorker<>() {
+            @Override
+            protected Move doInBackground() throws Exception {
+                if (pondered != null) {
+                    Move move = pondered.get();
+                    return cancellation.isCancelled() ? null : move;
+                }
+                return searcher.findBestMove(searchState, null, cancellation, progress -> publish(progress));
+            }
+
+            @Override
+            protected void process(List<AIPlayer.SearchProgress> chunks) {
+                if (cancellation.isCancelled()) return;
+                AIPlayer.SearchProgress progress = chunks.get(chunks.size() - 1);
+                turnLabel.setText(String.format("Turn: Computer (Thinking... depth %d, best: %s, score %d, " +
+                                "%d nodes, %d nodes/s)", progress.getDepth(), progress.getBestMove(),
+                        progress.getScore(), progress.getNodes(), progress.getNodesPerSecond()));
+            }
+
+            @Override
+            protected void done() {
+                // A new game was started while the computer was thinking; the result belongs to the old one.
+                if (cancellation.isCancelled() || searchState != currentGameState) return;
+                computerSearch = null;
+                takenPonderResult = null;
+                takenPonderToken = null;
+                try {
+                    Move chosenMove = get();
+                    if (chosenMove != null && searcher.isLastMoveFromBook()) {
+                        appendMessage("Computer chose: " + chosenMove + " (Opening book)");
+                        currentGameState.makeMove(chosenMove.getDivisor());
+                        gameRecord.addMove(chosenMove.getDivisor());
+                    } else if (chosenMove != null) {
+                        appendMessage("Computer chose: " + chosenMove +
+                                " (" + (pondered != null ? "Pondered, " : "") +
+                                "Nodes: " + searcher.getNodesChecked() +
+                                ", TT hits: " + searcher.getTtHits() + "/" +
+                                (searcher.getTtHits() + searcher.getTtMisses()) +
+                                ", Time: " + MatchupStats.formatNanos(searcher.getMoveTimeNanos()) + ")");
+                        currentGameState.makeMove(chosenMove.getDivisor());
+                        gameRecord.addMove(chosenMove.getDivisor());
+                    } else {
+                        appendMessage("Computer cannot make a move. Forcing end.");
+                        currentGameState.setCurrentNum(GameLogic.GAME_END_THRESHOLD);
+                    }
+
+                    updateUIState();
+                    if (currentGameState.isGameOver()) {
+                        endGame();
+                    } else {
+                        setPlayerControlsEnabled(true);
+                        startPondering();
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    appendMessage("Error during computer's turn: " + e.getMessage());
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    private void setPlayerControlsEnabled(boolean isEnabled) {
+        if (isEnabled && currentGameState != null && currentGameState.isPlayerTurn()) {
+            divideBy2Button.setEnabled(currentGameState.isMoveValid(2));
+            divideBy3Button.setEnabled(currentGameState.isMoveValid(3));
+        } else {
+            divideBy2Button.setEnabled(false);
+            divideBy3Button.setEnabled(false);
+        }
+    }
+
+    private void handlePlayerMove(int divisor) {
+        if (currentGameState == null || !currentGameState.isPlayerTurn() || currentGameState.isGameOver()) return;
+
+        if (!currentGameState.isMoveValid(divisor)) {
+            appendMessage("Invalid move: " + currentGameState.getCurrentNum() + " not divisible by " + divisor + ".");
+            return;
+        }
+
+        appendMessage("Player divides by " + divisor + ".");
+        currentGameState.makeMove(divisor);
+        gameRecord.addMove(divisor);
+        updateUIState();
+
+        Future<Move> pondered = takePonderResult(divisor);
+        if (currentGameState.isGameOver()) {
+            endGame();
+        } else if (pondered != null) {
+            triggerComputerMove(pondered, ponderers[divisor - 2]);
+        } else {
+            triggerComputerMove();
+        }
+    }
+
+    private void endGame() {
+        setPlayerControlsEnabled(false);
+        int winnerCode = GameLogic.checkWinner(currentGameState);
+        GameMetrics.gameFinished(winnerCode);
+        String endMessage = "\n--- GAME OVER ---\n";
+        endMessage += "Final Number: " + currentGameState.getCurrentNum() + "\n";
+        endMessage += "Final Score -> Player: " + currentGameState.getPlayerScore() +
+                " | Computer: " + currentGameState.getCompScore() + "\n";
+
+        if (winnerCode == 1) endMessage += ">>> PLAYER WINS! <<<";
+        else if (winnerCode == -1) endMessage += ">>> COMPUTER WINS! <<<";
+        else endMessage += ">>> IT'S A DRAW! <<<";
+
+        appendMessage(endMessage);
+        newGameButton.setVisible(true);
+        analyzeGame();
+    }
+
+    // Every position of the finished game is scored in parallel and each ply is shown as soon as it is
+    // done, so they can arrive out of order; the summary follows the last one. Results for a game that
+    // is no longer on screen are dropped.
+    private void analyzeGame() {
+        GameRecord record = gameRecord;
+        analyzedRecord = record;
+        appendMessage("\n--- Analysis (" + GameAnalyzer.DEFAULT_ENGINE + ", " + record.getMoveCount() + " plies) ---");
+        analyzer.analyze(record, analysis -> {
+            if (analyzedRecord == record) appendMessage(analysis.toString());
+        }).whenComplete((plies, error) -> {
+            if (analyzedRecord != record) return;
+            if (error != null) appendMessage("Analysis failed: " + error.getMessage());
+            else appendMessage(analysisSummary(plies));
+        });
+    }
+
+    private static String analysisSummary(List<GameAnalyzer.PlyAnalysis> plies) {
+        long[] loss = new long[2];
+        GameAnalyzer.PlyAnalysis worst = null;
+        for (GameAnalyzer.PlyAnalysis ply : plies) {
+            loss[ply.isPlayerMove() ? 1 : 0] += ply.getLoss();
+            if (worst == null || ply.getLoss() > worst.getLoss()) worst = ply;
+        }
+        String summary = "Total loss -> Player: " + loss[1] + " | Computer: " + loss[0];
+        if (worst == null || worst.getLoss() == 0) return summary + "\nBoth sides played best moves throughout.";
+        return summary + "\nBiggest mistake: " + worst;
+    }
+    // The experiment AI sits in the computer seat; both engines search the position unmirrored.
+    private static GameOutcomeCache.Outcome playExperimentGame(int startNum, boolean playerStarts, AIPlayer experimentAI,
+                                                               AIPlayer opponentAI, TranspositionStore sharedTable) {
+        GameState expState = new GameState(startNum, playerStarts);
+        StringBuilder moves = new StringBuilder();
+        experimentAI.resetGameStats();
+        opponentAI.resetGameStats();
+        sharedTable.clear();
+        GameMetrics.gameStarted();
+
+        while (!expState.isGameOver()) {
+            AIPlayer currentTurnAI = expState.isPlayerTurn() ? opponentAI : experimentAI;
+            Move move = currentTurnAI.findBestMove(expState);
+            if (move != null) {
+                expState.makeMove(move.getDivisor());
+                moves.append(move.getDivisor());
+            } else {
+                expState.setCurrentNum(GameLogic.GAME_END_THRESHOLD);
+            }
+        }
+
+        int winner = GameLogic.checkWinner(expState);
+        GameMetrics.gameFinished(winner);
+        return new GameOutcomeCache.Outcome(winner, expState.getPlayerScore(), expState.getCompScore(), moves.toString(),
+                new long[]{experimentAI.getTotalNodesThisGame(), opponentAI.getTotalNodesThisGame()},
+                new long[]{experimentAI.getAvgTimeThisGame(), opponentAI.getAvgTimeThisGame()});
+    }
+
+    private void runExperiments() {
+        startGameButton.setEnabled(false);
+        runExperimentsButton.setEnabled(false);
+        newGameButton.setVisible(false);
+        if (divideBy2Button != null) divideBy2Button.setEnabled(false);
+        if (divideBy3Button != null) divideBy3Button.setEnabled(false);
+
+        appendMessage("\n--- Running Experiments ---");
+        appendMessage("This might take a while...");
+
+        AIPlayer.Algorithm algo = getSelectedAlgorithm();
+        int depth = FIXED_AI_DEPTH;
+        int startNum = (Integer) Objects.requireNonNull(numberSelector.getSelectedItem());
+        boolean randomTies = randomTiesCheckBox.isSelected();
+
+        SwingWorker<String, String> experimentWorker = new SwingWorker<>() {
+            @Override
+            protected String doInBackground() {
+                publish("Starting " + numExperiments + " games for " + algo + " at fixed depth " + depth + "...");
+                // Both sides search the same positions from the same perspective, so they share one table.
+                SharedTranspositionTable sharedTable = SharedTranspositionTable.ofMegabytes(EXPERIMENT_TT_MB);
+                experimentAI = new AIPlayer(algo, depth, sharedTable);
+                AIPlayer opponentAI = new AIPlayer(algo, depth, sharedTable);
+                experimentAI.registerMetrics("Experiment " + algo + ":" + depth);
+                opponentAI.registerMetrics("Experiment opponent " + algo + ":" + depth);
+
+                int playerWins = 0;
+                int compWins = 0;
+                int draws = 0;
+                int computedGames = 0;
+                int reusedGames = 0;
+                long totalNodesSum = 0;
+                long totalAvgTimeSum = 0;
+
+                for (int i = 1; i <= numExperiments; i++) {
+                    boolean player1Starts = (i % 2 == 1);
+                    // Seeded per game, so a rerun of the experiment plays the same distinct games.
+                    experimentAI.setRandomTieBreaks(randomTies ? new Random(EXPERIMENT_TIE_SEED + 2L * i) : null);
+                    opponentAI.setRandomTieBreaks(randomTies ? new Random(EXPERIMENT_TIE_SEED + 2L * i + 1) : null);
+                    String key = GameOutcomeCache.key(startNum, player1Starts, experimentAI, opponentAI);
+                    GameOutcomeCache.Outcome outcome = outcomeCache.get(key);
+                    boolean cached = outcome != null;
+                    if (cached) {
+                        reusedGames++;
+                    } else {
+                        outcome = playExperimentGame(startNum, player1Starts, experimentAI, opponentAI, sharedTable);
+                        outcomeCache.put(key, outcome);
+                        computedGames++;
+                    }
+
+                    int winner = outcome.getWinner();
+                    if (winner == 1) playerWins++;
+                    else if (winner == -1) compWins++;
+                    else draws++;
+
+                    totalNodesSum += outcome.getNodes(0);
+                    totalAvgTimeSum += outcome.getAvgTimeMs(0);
+
+                    publish("Game " + i + " finished. Winner: " + (winner == 1 ? "Opponent" : (winner == -1 ? "ExperimentAI" : "Draw")) +
+                            ", Nodes: " + outcome.getNodes(0) +
+                            ", AvgTime: " + outcome.getAvgTimeMs(0) + "ms" + (cached ? " (cached)" : ""));
+                }
+
+                experimentAI.unregisterMetrics();
+                opponentAI.unregisterMetrics();
+                long avgNodes = (numExperiments == 0) ? 0 : totalNodesSum / numExperiments;
+                long avgTime = (numExperiments == 0) ? 0 : totalAvgTimeSum / numExperiments;
+
+                return String.format(
+                        "\n--- Experiment Results (%d Games) ---\n" +
+                                "Algorithm: %s, Fixed Depth: %d\n" +
+                                "Experiment AI Wins: %d\n" +
+                                "Opponent AI Wins: %d\n" +
+                                "Draws: %d\n" +
+                                "Avg Nodes Visited per Game (by Exp AI): %d\n" +
+                                "Avg Move Time per Game (Avg for Exp AI): %d ms\n" +
+                                "Games Computed: %d, Reused from Cache: %d%s\n" +
+                                "--------------------------------------",
+                        numExperiments, algo, depth,
+                        compWins, playerWins, draws, avgNodes, avgTime,
+                        computedGames, reusedGames, randomTies ? " (random tie-breaks)" : ""
+                );
+            }
+
+            @Override
+            protected void process(List<String> chunks) {
+                for (String message : chunks) {
+                    appendMessage(message);
+                }
+            }
+
+            @Override
+            protected void done() {
+                startGameButton.setEnabled(true);
+                runExperimentsButton.setEnabled(true);
+                if (setupComplete && currentGameState != null) {
+                    updateUIState();
+                    newGameButton.setVisible(currentGameState.isGameOver());
+                }
+
+                try {
+                    String finalResults = get();
+                    appendMessage(finalResults);
+                    JOptionPane.showMessageDialog(GameGUI.this,
+                            finalResults,
+                            "Experiment Results",
+                            JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException e) {
+                    e.printStackTrace();
+                    appendMessage("\nError during experiments: " + e.getMessage());
+                    JOptionPane.showMessageDialog(GameGUI.this,
+                            "Error running experiments: " + e.getMessage(),
+                            "Experiment Error",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        experimentWorker.execute();
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        Object source = e.getSource();
+
+        if (source == startGameButton) {
+            startGame();
+        } else if (source == newGameButton) {
+            resetForNewGame();
+        } else if (source == divideBy2Button) {
+            handlePlayerMove(2);
+        } else if (source == divideBy3Button) {
+            handlePlayerMove(3);
+        } else if (source == runExperimentsButton) {
+            runExperiments();
+        }
+    }
+}
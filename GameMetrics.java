@@ -0,0 +1,45 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// JVM-wide game counts, registered once as divideconquer:type=Games. Games are started and finished
+// from the EDT, experiment workers and tournament threads at once, hence LongAdder.
+public class GameMetrics implements GameMetricsMBean {
+    private static final GameMetrics INSTANCE = new GameMetrics();
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder playerWins = new LongAdder();
+    private final LongAdder computerWins = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(INSTANCE, new ObjectName(EngineMetrics.DOMAIN + ":type=Games"));
+        } catch (JMException e) {
+            System.err.println("Warning: game metrics not registered: " + e.getMessage());
+        }
+    }
+
+    private GameMetrics() {}
+
+    public static void gameStarted() { INSTANCE.started.increment(); }
+
+    // winnerCode as returned by GameLogic.checkWinner.
+    public static void gameFinished(int winnerCode) {
+        if (winnerCode == 1) INSTANCE.playerWins.increment();
+        else if (winnerCode == -1) INSTANCE.computerWins.increment();
+        else INSTANCE.draws.increment();
+    }
+
+    public static void gameAbandoned() { INSTANCE.abandoned.increment(); }
+
+    @Override public long getGamesInProgress() { return started.sum() - getGamesFinished() - abandoned.sum(); }
+    @Override public long getGamesFinished() { return playerWins.sum() + computerWins.sum() + draws.sum(); }
+    @Override public long getPlayerWins() { return playerWins.sum(); }
+    @Override public long getComputerWins() { return computerWins.sum(); }
+    @Override public long getDraws() { return draws.sum(); }
+    @Override public long getGamesAbandoned() { return abandoned.sum(); }
+}
@@ -0,0 +1,9 @@
+// Game counts across every GUI game, experiment game and tournament game in this JVM.
+public interface GameMetricsMBean {
+    long getGamesInProgress();
+    long getGamesFinished();
+    long getPlayerWins();
+    long getComputerWins();
+    long getDraws();
+    long getGamesAbandoned();
+}
@@ -0,0 +1,54 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Outcomes of finished games between deterministic engines. Two such engines playing the same start
+// with the same side to move always play the same game, so it only needs playing once. The key is the
+// start number, who starts and each seat's AIPlayer.getConfiguration() (algorithm, depth, evaluation
+// version). Games involving a non-deterministic engine, e.g. one with random tie-breaks, are not cached.
+// Entries are small and the key space is bounded by the start numbers, so nothing is evicted.
+public class GameOutcomeCache {
+    public static class Outcome {
+        final int winner;
+        final int playerScore;
+        final int compScore;
+        final String moves;
+        // Per seat, computer first: total nodes and average move time over the game.
+        final long[] nodes;
+        final long[] avgTimeMs;
+
+        Outcome(int winner, int playerScore, int compScore, String moves, long[] nodes, long[] avgTimeMs) {
+            this.winner = winner;
+            this.playerScore = playerScore;
+            this.compScore = compScore;
+            this.moves = moves;
+            this.nodes = nodes;
+            this.avgTimeMs = avgTimeMs;
+        }
+
+        public int getWinner() { return winner; }
+        public int getPlayerScore() { return playerScore; }
+        public int getCompScore() { return compScore; }
+        public String getMoves() { return moves; }
+        public long getNodes(int seat) { return nodes[seat]; }
+        public long getAvgTimeMs(int seat) { return avgTimeMs[seat]; }
+    }
+
+    private final ConcurrentMap<String, Outcome> outcomes = new ConcurrentHashMap<>();
+
+    // null when either engine is not deterministic.
+    public static String key(int startNum, boolean playerStarts, AIPlayer computer, AIPlayer player) {
+        if (!computer.isDeterministic() || !player.isDeterministic()) return null;
+        return startNum + (playerStarts ? "/player/" : "/computer/") + computer.getConfiguration() + "/"
+                + player.getConfiguration();
+    }
+
+    public Outcome get(String key) { return key == null ? null : outcomes.get(key); }
+
+    public void put(String key, Outcome outcome) {
+        if (key != null) outcomes.put(key, outcome);
+    }
+
+    public int size() { return outcomes.size(); }
+
+    public void clear() { outcomes.clear(); }
+}
@@ -0,0 +1,103 @@
+import java.nio.ByteBuffer;
+
+// One game in the compact record format: the start number, who moved first and one bit per move, set
+// for a division by 3. Scores and the result are not stored; replay() recomputes them through
+// GameState.makeMove. Encoded as varint(startNum << 1 | player started) followed by
+// varint(1 << moveCount | move bits), so a record is self-delimiting without a length field. A game
+// from the usual 10000-20000 start range takes 4 bytes, 5 for the few with more than 6 moves.
+public class GameRecord {
+    static final int MAX_MOVES = 63;
+    static final int MAX_ENCODED_BYTES = 15;
+
+    int startNum;
+    boolean playerStarts;
+    int moveCount;
+    long moveBits;
+
+    public GameRecord() {}
+
+    public GameRecord(int startNum, boolean playerStarts) {
+        set(startNum, playerStarts, 0, 0);
+    }
+
+    // moves is a string of divisors as written by Tournament, e.g. "2332".
+    public static GameRecord of(int startNum, boolean playerStarts, CharSequence moves) {
+        GameRecord record = new GameRecord(startNum, playerStarts);
+        for (int i = 0; i < moves.length(); i++) record.addMove(moves.charAt(i) - '0');
+        return record;
+    }
+
+    void set(int startNum, boolean playerStarts, int moveCount, long moveBits) {
+        if (startNum <= 0) throw new IllegalArgumentException("Start number must be positive: " + startNum);
+        this.startNum = startNum;
+        this.playerStarts = playerStarts;
+        this.moveCount = moveCount;
+        this.moveBits = moveBits;
+    }
+
+    public void addMove(int divisor) {
+        if (divisor != 2 && divisor != 3) throw new IllegalArgumentException("Divisor must be 2 or 3");
+        if (moveCount == MAX_MOVES) throw new IllegalStateException("A record holds at most " + MAX_MOVES + " moves");
+        if (divisor == 3) moveBits |= 1L << moveCount;
+        moveCount++;
+    }
+
+    public int getStartNum() { return startNum; }
+    public boolean isPlayerStarts() { return playerStarts; }
+    public int getMoveCount() { return moveCount; }
+    public int getMove(int ply) { return (moveBits >>> ply & 1) == 0 ? 2 : 3; }
+
+    // Plays the record from its start position. A move the rules reject means the record is corrupt.
+    public GameState replay() {
+        GameState state = new GameState(startNum, playerStarts);
+        for (int ply = 0; ply < moveCount; ply++) {
+            if (!state.makeMove(getMove(ply))) {
+                throw new IllegalStateException("Illegal move at ply " + ply + " in " + this);
+            }
+        }
+        return state;
+    }
+
+    void encode(ByteBuffer buffer) {
+        putVarint(buffer, (long) startNum << 1 | (playerStarts ? 1 : 0));
+        putVarint(buffer, 1L << moveCount | moveBits);
+    }
+
+    void decode(ByteBuffer buffer) {
+        long header = getVarint(buffer);
+        long moves = getVarint(buffer);
+        if (header >>> 1 > Integer.MAX_VALUE || moves == 0) throw new IllegalStateException("Corrupt game record");
+        int count = 63 - Long.numberOfLeadingZeros(moves);
+        set((int) (header >>> 1), (header & 1) != 0, count, moves & ~(1L << count));
+    }
+
+    static void skip(ByteBuffer buffer) {
+        getVarint(buffer);
+        getVarint(buffer);
+    }
+
+    static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalStateException("Corrupt game record");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder moves = new StringBuilder();
+        for (int ply = 0; ply < moveCount; ply++) moves.append(getMove(ply));
+        return "start " + startNum + ", " + (playerStarts ? "player" : "computer") + " first, moves " + moves;
+    }
+}
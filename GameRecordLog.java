@@ -0,0 +1,135 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Append-only log of GameRecords for self-play at scale. The file is memory-mapped REGION_SIZE bytes
+// at a time, so appending a game is a handful of byte stores and the log can grow past 2 GB. The offset
+// of every INDEX_INTERVAL-th record goes to a sparse index in <file>.idx, which GameRecordReader uses
+// to seek without scanning from the start.
+//
+// Layout (big-endian): header {int magic, short version, short unused, int indexInterval, int unused,
+// long recordCount, long dataEnd}, then the records back to back in GameRecord's encoding. The header
+// is only brought up to date by flush() and close(): after a crash the log reopens at the last flush,
+// and anything after dataEnd, including the zero padding of the last mapped region, is ignored.
+// close() cuts that padding off again.
+// Not thread-safe; Tournament appends from the thread that collects results.
+public class GameRecordLog implements Closeable {
+    static final int MAGIC = 0x44434752;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int INDEX_INTERVAL = 1024;
+    static final long REGION_SIZE = 8L << 20;
+
+    private final FileChannel channel;
+    private final FileChannel indexChannel;
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(8);
+    private MappedByteBuffer region;
+    private long regionStart;
+    long recordCount;
+    long dataEnd;
+
+    private GameRecordLog(FileChannel channel, FileChannel indexChannel, long recordCount, long dataEnd)
+            throws IOException {
+        this.channel = channel;
+        this.indexChannel = indexChannel;
+        this.recordCount = recordCount;
+        this.dataEnd = dataEnd;
+        mapAt(dataEnd);
+    }
+
+    static Path indexFileFor(Path file) {
+        return file.resolveSibling(file.getFileName() + ".idx");
+    }
+
+    // Creates the log, or reopens an existing one for appending. The index of an existing log is
+    // rewritten from GameRecordReader's view of it, which repairs an index left behind by a crash.
+    public static GameRecordLog open(Path file) throws IOException {
+        long recordCount = 0;
+        long dataEnd = HEADER_SIZE;
+        long[] index = new long[0];
+        if (Files.isRegularFile(file) && Files.size(file) > 0) {
+            try (GameRecordReader reader = GameRecordReader.open(file)) {
+                if (reader.indexInterval != INDEX_INTERVAL) {
+                    throw new IOException("Unsupported index interval " + reader.indexInterval);
+                }
+                recordCount = reader.recordCount;
+                dataEnd = reader.dataEnd;
+                index = reader.getIndex();
+            }
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        FileChannel indexChannel = null;
+        try {
+            indexChannel = FileChannel.open(indexFileFor(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer entries = ByteBuffer.allocate(index.length * 8);
+            for (long offset : index) entries.putLong(offset);
+            entries.flip();
+            while (entries.hasRemaining()) indexChannel.write(entries);
+            GameRecordLog log = new GameRecordLog(channel, indexChannel, recordCount, dataEnd);
+            log.writeHeader();
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            if (indexChannel != null) indexChannel.close();
+            throw e;
+        }
+    }
+
+    private void mapAt(long offset) throws IOException {
+        regionStart = offset;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, offset, REGION_SIZE);
+    }
+
+    public long getRecordCount() { return recordCount; }
+
+    public void append(GameRecord record) throws IOException {
+        if (recordCount % INDEX_INTERVAL == 0) {
+            indexEntry.clear();
+            indexEntry.putLong(0, dataEnd);
+            while (indexEntry.hasRemaining()) indexChannel.write(indexEntry);
+        }
+        if (region.remaining() < GameRecord.MAX_ENCODED_BYTES) mapAt(dataEnd);
+        record.encode(region);
+        dataEnd = regionStart + region.position();
+        recordCount++;
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(INDEX_INTERVAL).putInt(0)
+                .putLong(recordCount).putLong(dataEnd).flip();
+        while (header.hasRemaining()) channel.write(header, header.position());
+    }
+
+    // Makes everything appended so far durable and visible to readers that open the log afterwards.
+    public void flush() throws IOException {
+        region.force();
+        indexChannel.force(false);
+        writeHeader();
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            region = null;
+            try {
+                channel.truncate(dataEnd);
+            } catch (IOException e) {
+                // Windows refuses while the region is still mapped; the padding stays and readers skip it.
+            }
+        } finally {
+            channel.close();
+            indexChannel.close();
+        }
+    }
+}
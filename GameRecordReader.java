@@ -0,0 +1,167 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+// Streaming reader for a GameRecordLog. The log is mapped read-only a window at a time and records are
+// decoded in place into a caller-supplied GameRecord, so decoding allocates nothing per game; only moving
+// to another REGION_SIZE window, when reading on or in seek(), maps a new buffer. seek() jumps through the
+// sparse index and skips at most INDEX_INTERVAL - 1 records; an index that is missing or behind the log
+// is completed in memory by scanning.
+// Usage: java GameRecordReader <file> [--from N] [--limit K]  (replays and re-scores the games)
+public class GameRecordReader implements Closeable {
+    static final long REGION_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    final long recordCount;
+    final long dataEnd;
+    final int indexInterval;
+    final long[] index;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long nextRecord;
+
+    private GameRecordReader(FileChannel channel, Path indexFile) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(GameRecordLog.HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) { }
+        if (header.position() < GameRecordLog.HEADER_SIZE || header.getInt(0) != GameRecordLog.MAGIC) {
+            throw new IOException("Not a game record log");
+        }
+        short version = header.getShort(4);
+        if (version != GameRecordLog.VERSION) throw new IOException("Unsupported game record log version " + version);
+        this.indexInterval = header.getInt(8);
+        this.recordCount = header.getLong(16);
+        this.dataEnd = header.getLong(24);
+        if (indexInterval <= 0 || recordCount < 0 || dataEnd < GameRecordLog.HEADER_SIZE || dataEnd > channel.size()) {
+            throw new IOException("Corrupt game record log header");
+        }
+        this.index = new long[(int) ((recordCount + indexInterval - 1) / indexInterval)];
+        int loaded = loadIndex(indexFile);
+        mapAt(loaded == 0 ? GameRecordLog.HEADER_SIZE : index[loaded - 1]);
+        nextRecord = loaded == 0 ? 0 : (long) (loaded - 1) * indexInterval;
+        GameRecord scratch = new GameRecord();
+        for (int entry = Math.max(loaded, 1); entry < index.length; entry++) {
+            while (nextRecord < (long) entry * indexInterval) next(scratch);
+            index[entry] = position();
+        }
+        seek(0);
+    }
+
+    public static GameRecordReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new GameRecordReader(channel, GameRecordLog.indexFileFor(file));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Number of leading index entries read from the file; entries that point past the data are ignored.
+    private int loadIndex(Path indexFile) throws IOException {
+        if (index.length == 0) return 0;
+        index[0] = GameRecordLog.HEADER_SIZE;
+        if (!Files.isRegularFile(indexFile)) return 1;
+        try (FileChannel indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            int available = (int) Math.min(index.length, indexChannel.size() / 8);
+            ByteBuffer buffer = ByteBuffer.allocate(available * 8);
+            while (buffer.hasRemaining() && indexChannel.read(buffer) > 0) { }
+            buffer.flip();
+            int loaded = 0;
+            while (buffer.remaining() >= 8) {
+                long offset = buffer.getLong();
+                if (offset < GameRecordLog.HEADER_SIZE || offset >= dataEnd || (loaded > 0 && offset <= index[loaded - 1])) break;
+                index[loaded++] = offset;
+            }
+            return Math.max(loaded, 1);
+        }
+    }
+
+    private void mapAt(long offset) throws IOException {
+        regionStart = offset;
+        region = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(REGION_SIZE, dataEnd - offset));
+    }
+
+    private long position() { return regionStart + region.position(); }
+
+    public long getRecordCount() { return recordCount; }
+    public long getNextRecord() { return nextRecord; }
+    long[] getIndex() { return index; }
+
+    public void seek(long record) throws IOException {
+        if (record < 0 || record > recordCount) throw new IndexOutOfBoundsException("Record " + record + " of " + recordCount);
+        int entry = (int) Math.min(record / indexInterval, index.length - 1L);
+        long offset = index.length == 0 ? GameRecordLog.HEADER_SIZE : index[entry];
+        if (offset >= regionStart && offset <= regionStart + region.limit()) {
+            region.position((int) (offset - regionStart));
+        } else {
+            mapAt(offset);
+        }
+        nextRecord = (long) entry * indexInterval;
+        while (nextRecord < record) {
+            ensureMapped();
+            GameRecord.skip(region);
+            nextRecord++;
+        }
+    }
+
+    // Decodes the next record into the given one; false at the end of the log.
+    public boolean next(GameRecord into) throws IOException {
+        if (nextRecord == recordCount) return false;
+        ensureMapped();
+        into.decode(region);
+        nextRecord++;
+        return true;
+    }
+
+    private void ensureMapped() throws IOException {
+        if (region.remaining() < GameRecord.MAX_ENCODED_BYTES && regionStart + region.limit() < dataEnd) {
+            mapAt(position());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) throw new IllegalArgumentException("Usage: java GameRecordReader <file> [--from N] [--limit K]");
+        Path file = Paths.get(args[0]);
+        long from = 0;
+        long limit = Long.MAX_VALUE;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--from": from = Long.parseLong(args[++i]); break;
+                case "--limit": limit = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        try (GameRecordReader reader = open(file)) {
+            long startTime = System.nanoTime();
+            reader.seek(Math.min(from, reader.getRecordCount()));
+            GameRecord record = new GameRecord();
+            long games = 0, plies = 0, playerWins = 0, computerWins = 0, draws = 0;
+            while (games < limit && reader.next(record)) {
+                int winner = GameLogic.checkWinner(record.replay());
+                if (winner == 1) playerWins++; else if (winner == -1) computerWins++; else draws++;
+                plies += record.getMoveCount();
+                games++;
+            }
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            System.out.printf(Locale.ROOT, "%d records, %.1f bytes/game%n", reader.getRecordCount(),
+                    reader.getRecordCount() == 0 ? 0.0 : (reader.dataEnd - GameRecordLog.HEADER_SIZE) / (double) reader.getRecordCount());
+            System.out.printf(Locale.ROOT, "Replayed %d games (%d plies) in %.3f s, %.0f games/s%n",
+                    games, plies, seconds, games / Math.max(seconds, 1e-9));
+            System.out.printf("Player wins %d, computer wins %d, draws %d%n", playerWins, computerWins, draws);
+        }
+    }
+}
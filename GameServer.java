@@ -0,0 +1,426 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Headless server hosting many games at once over a line-based protocol on a loopback socket.
+// The client plays the player side and the server answers every player move with the computer's move.
+//   NEW <start> <player|computer> [ALGO:depth]   start a session; the computer moves first if it starts
+//   MOVE <id> <2|3>                               player move, answered together with the computer's reply
+//   STATE <id>                                    current position
+//   END <id>                                      close the session
+// Every request gets one line back: "OK id=.. num=.. player=.. computer=.. turn=.. reply=.. over=..",
+// "BUSY <reason>" when the server sheds load (nothing was changed, retry later) or "ERR <reason>".
+// Connections run on virtual threads when the JVM has them (Java 21+) and on a cached pool otherwise.
+// Searches go to a fixed pool of one thread per core behind a bounded queue, so they can never take the
+// threads that read requests; a full queue answers BUSY at once instead of letting latency pile up.
+// Usage: java GameServer [--port 7878] [--engine ALPHA_BETA:6] [--allow-engines PVS:8,EXACT] [--max-depth 12]
+//                        [--search-threads N] [--queue 256] [--max-sessions 100000]
+//                        [--session-timeout-ms 60000] [--search-timeout-ms 2000] [--shared-tt-mb M]
+// Clients can only name one of the engines the server was started with (--engine and --allow-engines,
+// none deeper than --max-depth), and never with weights, so each search thread holds a bounded set of
+// engines. Errors caused by a malformed request are answered with a generic "ERR bad request".
+// With --shared-tt-mb all search threads use one off-heap SharedTranspositionTable, so positions that
+// recur across sessions are searched once.
+public class GameServer implements AutoCloseable {
+    static final int DEFAULT_PORT = 7878;
+    static final int DEFAULT_MAX_DEPTH = 12;
+
+    // Guarded by lock rather than the monitor: a MOVE holds it while waiting for the search, and a virtual
+    // thread blocked inside a monitor pins its carrier on JDK 21-23.
+    static class Session {
+        final ReentrantLock lock = new ReentrantLock();
+        final long id;
+        final Tournament.EngineSpec engine;
+        GameState state;
+        volatile long lastActiveNanos = System.nanoTime();
+        int lastReply;
+        boolean closed;
+
+        Session(long id, GameState state, Tournament.EngineSpec engine) {
+            this.id = id;
+            this.state = state;
+            this.engine = engine;
+        }
+    }
+
+    static class RequestFailed extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        RequestFailed(String reply) { super(reply, null, false, false); }
+    }
+
+    int port = DEFAULT_PORT;
+    Tournament.EngineSpec defaultEngine = Tournament.EngineSpec.parse("ALPHA_BETA:6");
+    final List<Tournament.EngineSpec> extraEngines = new ArrayList<>();
+    int maxDepth = DEFAULT_MAX_DEPTH;
+    int searchThreads = Runtime.getRuntime().availableProcessors();
+    int queueCapacity = 256;
+    int maxSessions = 100_000;
+    long sessionTimeoutMs = 60_000;
+    long searchTimeoutMs = 2_000;
+    int sharedTableMb;
+    SharedTranspositionTable sharedTable;
+
+    final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    final AtomicLong nextSessionId = new AtomicLong(1);
+    final AtomicLong busyReplies = new AtomicLong();
+    final OpeningBook openingBook = OpeningBook.openDefault();
+    // Engines clients may choose, by upper-case name; fixed once the server starts.
+    final Map<String, Tournament.EngineSpec> allowedEngines = new LinkedHashMap<>();
+    final ThreadLocal<Map<String, AIPlayer>> engines = ThreadLocal.withInitial(HashMap::new);
+    final List<AIPlayer> createdEngines = Collections.synchronizedList(new ArrayList<>());
+    ServerSocket serverSocket;
+    ExecutorService requestExecutor;
+    ThreadPoolExecutor searchPool;
+    ScheduledExecutorService reaper;
+    Thread acceptThread;
+
+    public int getPort() { return serverSocket == null ? port : serverSocket.getLocalPort(); }
+    public int getSessionCount() { return sessions.size(); }
+    public long getBusyReplies() { return busyReplies.get(); }
+
+    public void start() throws IOException {
+        List<Tournament.EngineSpec> configured = new ArrayList<>(extraEngines);
+        configured.add(0, defaultEngine);
+        for (Tournament.EngineSpec spec : configured) {
+            if (spec.algorithm != AIPlayer.Algorithm.EXACT && spec.depth > maxDepth) {
+                throw new IllegalArgumentException("Engine " + spec + " is deeper than --max-depth " + maxDepth);
+            }
+            allowedEngines.putIfAbsent(spec.name.toUpperCase(Locale.ROOT), spec);
+        }
+        if (sharedTableMb > 0) sharedTable = SharedTranspositionTable.ofMegabytes(sharedTableMb);
+        serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        requestExecutor = newRequestExecutor();
+        searchPool = new ThreadPoolExecutor(searchThreads, searchThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("search", Thread.NORM_PRIORITY - 1),
+                new ThreadPoolExecutor.AbortPolicy());
+        reaper = Executors.newSingleThreadScheduledExecutor(daemonThreads("session-reaper", Thread.NORM_PRIORITY));
+        reaper.scheduleWithFixedDelay(this::expireSessions, 1, 1, TimeUnit.SECONDS);
+        acceptThread = new Thread(this::acceptLoop, "accept");
+        acceptThread.start();
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor is looked up reflectively so the server still builds and
+    // runs on Java 17, where it falls back to ordinary threads.
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(daemonThreads("request", Thread.NORM_PRIORITY));
+        }
+    }
+
+    static boolean hasVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    static ThreadFactory daemonThreads(String name, int priority) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            return thread;
+        };
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                requestExecutor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) System.err.println("Accept failed: " + e.getMessage());
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, sessionTimeoutMs));
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                out.write(handle(line));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (SocketTimeoutException e) {
+            // Idle connection; its sessions stay until they time out themselves.
+        } catch (IOException e) {
+            // Client went away.
+        }
+    }
+
+    String handle(String line) {
+        String[] parts = line.trim().split("\\s+");
+        try {
+            switch (parts[0].toUpperCase(Locale.ROOT)) {
+                case "NEW": return newSession(parts);
+                case "MOVE": return move(session(parts), parseInt(parts, 2));
+                case "STATE": {
+                    Session session = session(parts);
+                    session.lock.lock();
+                    try {
+                        return reply(session);
+                    } finally {
+                        session.lock.unlock();
+                    }
+                }
+                case "END": return end(session(parts));
+                default: return "ERR unknown command " + parts[0];
+            }
+        } catch (RequestFailed e) {
+            if (e.getMessage().startsWith("BUSY")) busyReplies.incrementAndGet();
+            return e.getMessage();
+        } catch (IllegalArgumentException e) {
+            return "ERR bad request";
+        }
+    }
+
+    private String newSession(String[] parts) throws RequestFailed {
+        int start = parseInt(parts, 1);
+        if (parts.length < 3) throw new RequestFailed("ERR usage: NEW <start> <player|computer> [ALGO:depth]");
+        boolean playerStarts = parts[2].equalsIgnoreCase("player");
+        if (!playerStarts && !parts[2].equalsIgnoreCase("computer")) {
+            throw new RequestFailed("ERR starter must be player or computer");
+        }
+        if (start <= GameLogic.GAME_END_THRESHOLD) throw new RequestFailed("ERR start must be above " + GameLogic.GAME_END_THRESHOLD);
+        Tournament.EngineSpec engine = parts.length > 3 ? clientEngine(parts[3]) : defaultEngine;
+        if (sessions.size() >= maxSessions) throw new RequestFailed("BUSY sessions");
+
+        GameState state = new GameState(start, playerStarts);
+        int reply = !playerStarts && !state.isGameOver() ? playComputerMove(engine, state) : 0;
+        Session session = new Session(nextSessionId.getAndIncrement(), state, engine);
+        session.lastReply = reply;
+        sessions.put(session.id, session);
+        GameMetrics.gameStarted();
+        if (state.isGameOver()) GameMetrics.gameFinished(GameLogic.checkWinner(state));
+        return reply(session);
+    }
+
+    // The player's move and the computer's reply are worked out on a copy and only then applied, so a
+    // BUSY or timed-out request leaves the session exactly as it was.
+    private String move(Session session, int divisor) throws RequestFailed {
+        session.lock.lock();
+        try {
+            if (session.closed) throw new RequestFailed("ERR no session " + session.id);
+            GameState state = session.state;
+            if (state.isGameOver()) throw new RequestFailed("ERR game over");
+            if (!state.isPlayerTurn()) throw new RequestFailed("ERR not the player's turn");
+            if (!state.isMoveValid(divisor)) throw new RequestFailed("ERR invalid move " + divisor);
+
+            GameState next = state.clone();
+            next.makeMove(divisor);
+            int reply = next.isGameOver() ? 0 : playComputerMove(session.engine, next);
+            session.state = next;
+            session.lastReply = reply;
+            session.lastActiveNanos = System.nanoTime();
+            if (next.isGameOver()) GameMetrics.gameFinished(GameLogic.checkWinner(next));
+            return reply(session);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    private int playComputerMove(Tournament.EngineSpec engine, GameState state) throws RequestFailed {
+        GameState position = state.clone();
+        CancellationToken cancellation = new CancellationToken();
+        Future<Move> search;
+        try {
+            search = searchPool.submit(() -> engineFor(engine).findBestMove(position, null, cancellation, null));
+        } catch (RejectedExecutionException e) {
+            throw new RequestFailed("BUSY search queue full");
+        }
+        Move move;
+        try {
+            move = search.get(searchTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            cancellation.cancel();
+            search.cancel(true);
+            throw new RequestFailed("BUSY search timed out");
+        } catch (InterruptedException e) {
+            cancellation.cancel();
+            search.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RequestFailed("ERR interrupted");
+        } catch (ExecutionException e) {
+            System.err.println("Search failed: " + e.getCause());
+            throw new RequestFailed("ERR search failed");
+        }
+        if (move == null) {
+            state.setCurrentNum(GameLogic.GAME_END_THRESHOLD);
+            return 0;
+        }
+        state.makeMove(move.getDivisor());
+        return move.getDivisor();
+    }
+
+    // The client's text is only ever looked up, never parsed, so it cannot name a weights file or an
+    // engine the server was not configured with.
+    private Tournament.EngineSpec clientEngine(String name) throws RequestFailed {
+        if (name.contains("@")) throw new RequestFailed("ERR engine weights cannot be chosen by clients");
+        Tournament.EngineSpec spec = allowedEngines.get(name.toUpperCase(Locale.ROOT));
+        if (spec == null || spec.weights != EvalWeights.DEFAULT) {
+            throw new RequestFailed("ERR unknown engine, choose one of " + clientEngineNames());
+        }
+        return spec;
+    }
+
+    private String clientEngineNames() {
+        StringBuilder names = new StringBuilder();
+        for (Tournament.EngineSpec spec : allowedEngines.values()) {
+            if (spec.weights == EvalWeights.DEFAULT) names.append(names.length() == 0 ? "" : ",").append(spec.name);
+        }
+        return names.toString();
+    }
+
+    // One engine per search thread and configuration, like Tournament: an AIPlayer is not thread-safe.
+    // Only configured engines get here, so the cache holds at most allowedEngines.size() per thread.
+    // Engines with their own evaluation weights keep a private table, since their scores would not mix.
+    private AIPlayer engineFor(Tournament.EngineSpec spec) {
+        return engines.get().computeIfAbsent(spec.name, k -> {
+            AIPlayer player = sharedTable != null && spec.weights == EvalWeights.DEFAULT
+                    ? spec.create(sharedTable) : spec.create();
+            player.setOpeningBook(openingBook);
+            player.registerMetrics("Server " + k + " " + Thread.currentThread().getName());
+            createdEngines.add(player);
+            return player;
+        });
+    }
+
+    private String end(Session session) {
+        session.lock.lock();
+        try {
+            if (sessions.remove(session.id) != null && !session.state.isGameOver()) GameMetrics.gameAbandoned();
+            session.closed = true;
+            return reply(session);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    private void expireSessions() {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(sessionTimeoutMs);
+        for (Session session : sessions.values()) {
+            // A session whose lock is held is in the middle of a request, so it is not idle.
+            if (now - session.lastActiveNanos > timeoutNanos && session.lock.tryLock()) {
+                try {
+                    if (sessions.remove(session.id) != null && !session.state.isGameOver()) GameMetrics.gameAbandoned();
+                    session.closed = true;
+                } finally {
+                    session.lock.unlock();
+                }
+            }
+        }
+    }
+
+    private Session session(String[] parts) throws RequestFailed {
+        long id = parts.length > 1 ? Long.parseLong(parts[1]) : -1;
+        Session session = sessions.get(id);
+        if (session == null) throw new RequestFailed("ERR no session " + (parts.length > 1 ? parts[1] : ""));
+        session.lastActiveNanos = System.nanoTime();
+        return session;
+    }
+
+    private static String reply(Session session) {
+        GameState state = session.state;
+        StringBuilder sb = new StringBuilder("OK id=").append(session.id)
+                .append(" num=").append(state.getCurrentNum())
+                .append(" player=").append(state.getPlayerScore())
+                .append(" computer=").append(state.getCompScore())
+                .append(" turn=").append(state.isPlayerTurn() ? "player" : "computer")
+                .append(" reply=").append(session.lastReply)
+                .append(" over=").append(state.isGameOver());
+        if (state.isGameOver()) {
+            int winner = GameLogic.checkWinner(state);
+            sb.append(" winner=").append(winner == 1 ? "player" : winner == -1 ? "computer" : "draw");
+        }
+        return sb.toString();
+    }
+
+    private static int parseInt(String[] parts, int index) {
+        if (parts.length <= index) throw new IllegalArgumentException("missing argument " + index);
+        return Integer.parseInt(parts[index]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (serverSocket != null) serverSocket.close();
+        if (requestExecutor != null) requestExecutor.shutdownNow();
+        if (searchPool != null) searchPool.shutdownNow();
+        if (reaper != null) reaper.shutdownNow();
+        synchronized (createdEngines) {
+            for (AIPlayer player : createdEngines) player.unregisterMetrics();
+            createdEngines.clear();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        GameServer server = new GameServer();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": server.port = Integer.parseInt(args[++i]); break;
+                case "--engine": server.defaultEngine = Tournament.EngineSpec.parse(args[++i]); break;
+                case "--allow-engines":
+                    for (String spec : args[++i].split(",")) server.extraEngines.add(Tournament.EngineSpec.parse(spec));
+                    break;
+                case "--max-depth": server.maxDepth = Integer.parseInt(args[++i]); break;
+                case "--search-threads": server.searchThreads = Integer.parseInt(args[++i]); break;
+                case "--queue": server.queueCapacity = Integer.parseInt(args[++i]); break;
+                case "--max-sessions": server.maxSessions = Integer.parseInt(args[++i]); break;
+                case "--session-timeout-ms": server.sessionTimeoutMs = Long.parseLong(args[++i]); break;
+                case "--search-timeout-ms": server.searchTimeoutMs = Long.parseLong(args[++i]); break;
+                case "--shared-tt-mb": server.sharedTableMb = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        server.start();
+        System.out.println("Game server on " + server.serverSocket.getLocalSocketAddress() + ", engine " +
+                server.defaultEngine + ", " + server.searchThreads + " search threads, queue " + server.queueCapacity +
+                ", " + (hasVirtualThreads() ? "virtual" : "platform") + " request threads");
+        server.acceptThread.join();
+    }
+}
@@ -0,0 +1,128 @@
+import java.math.BigInteger;
+
+// GameState for start numbers past the int range: anything a long holds, and anything larger through
+// BigInteger. The number is kept factored as residual * 2^twos * 3^threes, where the residual is the
+// part no move can divide. Factoring happens once, at construction: trailing zeros give the twos, and the
+// threes come off by multiplying with the inverse of 3 mod 2^64, which yields the exact quotient and shows
+// divisibility with one unsigned comparison. From then on checking a move is a test against zero and
+// making it is a decrement, however large the number.
+public class LargeGameState implements Cloneable {
+    static final long INVERSE_OF_3 = 0xAAAAAAAAAAAAAAABL;
+    static final long MAX_MULTIPLE_OF_3_QUOTIENT = Long.divideUnsigned(-1L, 3);
+    static final int SMALL_LIMIT = 1 << 20;
+    private static final BigInteger THREE = BigInteger.valueOf(3);
+
+    final BigInteger residual;
+    final int smallResidual;
+    int twos;
+    int threes;
+    int playerScore;
+    int compScore;
+    boolean isPlayerTurn;
+
+    public LargeGameState(long startingNumber, boolean playerStartsFirst) {
+        this(BigInteger.valueOf(startingNumber), playerStartsFirst);
+    }
+
+    public LargeGameState(BigInteger startingNumber, boolean playerStartsFirst) {
+        if (startingNumber.signum() <= 0) throw new IllegalArgumentException("Start number must be positive");
+        twos = startingNumber.getLowestSetBit();
+        BigInteger rest = startingNumber.shiftRight(twos);
+        while (rest.bitLength() >= Long.SIZE) {
+            BigInteger[] quotientAndRemainder = rest.divideAndRemainder(THREE);
+            if (quotientAndRemainder[1].signum() != 0) break;
+            rest = quotientAndRemainder[0];
+            threes++;
+        }
+        if (rest.bitLength() < Long.SIZE) {
+            long value = rest.longValue();
+            for (long quotient; Long.compareUnsigned(quotient = value * INVERSE_OF_3, MAX_MULTIPLE_OF_3_QUOTIENT) <= 0; ) {
+                value = quotient;
+                threes++;
+            }
+            rest = BigInteger.valueOf(value);
+        }
+        this.residual = rest;
+        this.smallResidual = smallOf(rest);
+        this.isPlayerTurn = playerStartsFirst;
+    }
+
+    private LargeGameState(BigInteger residual, int smallResidual, int twos, int threes, int pScore, int cScore,
+                           boolean pTurn) {
+        this.residual = residual;
+        this.smallResidual = smallResidual;
+        this.twos = twos;
+        this.threes = threes;
+        this.playerScore = pScore;
+        this.compScore = cScore;
+        this.isPlayerTurn = pTurn;
+    }
+
+    public static LargeGameState of(GameState state) {
+        LargeGameState large = new LargeGameState(state.currentNum, state.isPlayerTurn);
+        large.playerScore = state.playerScore;
+        large.compScore = state.compScore;
+        return large;
+    }
+
+    private static int smallOf(BigInteger value) {
+        return value.bitLength() <= 20 ? Math.min(value.intValue(), SMALL_LIMIT) : SMALL_LIMIT;
+    }
+
+    // residual * 2^twos * 3^threes, or SMALL_LIMIT if it is at least that. Only numbers near the end of the
+    // game threshold matter to the rules and to evaluate, so this is all the search ever needs of the number.
+    static int smallValue(int smallResidual, int twos, int threes) {
+        if (twos >= 20 || threes >= 13) return SMALL_LIMIT;
+        long value = (long) smallResidual << twos;
+        for (int i = 0; i < threes && value < SMALL_LIMIT; i++) value *= 3;
+        return (int) Math.min(value, SMALL_LIMIT);
+    }
+
+    public BigInteger getCurrentNum() { return residual.shiftLeft(twos).multiply(THREE.pow(threes)); }
+    public BigInteger getResidual() { return residual; }
+    public int getTwos() { return twos; }
+    public int getThrees() { return threes; }
+    public int getPlayerScore() { return playerScore; }
+    public int getCompScore() { return compScore; }
+    public boolean isPlayerTurn() { return isPlayerTurn; }
+    public int getRemainingPlies() { return twos + threes; }
+
+    public boolean isGameOver() {
+        return (twos == 0 && threes == 0) || smallValue(smallResidual, twos, threes) <= GameLogic.GAME_END_THRESHOLD;
+    }
+
+    public boolean isMoveValid(int divisor) {
+        if (divisor == 2) return twos > 0;
+        if (divisor == 3) return threes > 0;
+        return false;
+    }
+
+    // Same scoring as GameState.makeMove.
+    public boolean makeMove(int divisor) {
+        if (!isMoveValid(divisor)) return false;
+        if (divisor == 2) {
+            if (isPlayerTurn) compScore += 2; else playerScore += 2;
+            twos--;
+        } else {
+            if (isPlayerTurn) playerScore += 3; else compScore += 3;
+            threes--;
+        }
+        isPlayerTurn = !isPlayerTurn;
+        return true;
+    }
+
+    public LargeGameState mirrored() {
+        return new LargeGameState(residual, smallResidual, twos, threes, compScore, playerScore, !isPlayerTurn);
+    }
+
+    @Override
+    public LargeGameState clone() {
+        return new LargeGameState(residual, smallResidual, twos, threes, playerScore, compScore, isPlayerTurn);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Num: %s (%s * 2^%d * 3^%d), Player Score: %d, Computer Score: %d, Turn: %s",
+                getCurrentNum(), residual, twos, threes, playerScore, compScore, (isPlayerTurn ? "Player" : "Computer"));
+    }
+}
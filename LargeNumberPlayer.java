@@ -0,0 +1,187 @@
+import java.math.BigInteger;
+import java.util.Locale;
+
+// Engine for LargeGameState. ALPHA_BETA searches the lattice of remaining exponents: a position packs
+// into a PackedState long with the cell (twos | threes << 16) where the number would be, so the
+// transposition table key and score fields work unchanged, and the residual only comes in through
+// LargeGameState.smallValue near the end threshold. A search deeper than a position's remaining plies
+// sees the same tree as one exactly that deep, so the table is probed and filled at the smaller of
+// the two; that folds a 60-ply game onto its few thousand lattice positions. EXACT hands the
+// exponents to LatticeSolver. Root and evaluation conventions are AIPlayer's, so on int-sized
+// starts both engines pick the same moves, including with the same EvalWeights.
+// Usage: java LargeNumberPlayer <start> [--engine ALPHA_BETA:12[@weights file]|EXACT] [--player-first]
+public class LargeNumberPlayer {
+    static final int MAX_PLIES = 2048;
+    static final int MAX_DEPTH = Byte.MAX_VALUE;
+    private static final int TWOS_MASK = 0xFFFF;
+    private static final int THREES_SHIFT = 16;
+
+    final AIPlayer.Algorithm algorithm;
+    final int searchDepth;
+    final TranspositionTable table;
+    final LatticeSolver solver;
+    private int smallResidual;
+    EvalWeights evalWeights = EvalWeights.DEFAULT;
+    long nodesChecked;
+
+    public LargeNumberPlayer(AIPlayer.Algorithm algorithm, int searchDepth) {
+        this(algorithm, searchDepth, AIPlayer.DEFAULT_TT_ENTRIES);
+    }
+
+    // ttEntries <= 0 searches without a transposition table.
+    public LargeNumberPlayer(AIPlayer.Algorithm algorithm, int searchDepth, int ttEntries) {
+        if (algorithm != AIPlayer.Algorithm.ALPHA_BETA && algorithm != AIPlayer.Algorithm.EXACT) {
+            throw new IllegalArgumentException("Large numbers support ALPHA_BETA and EXACT, not " + algorithm);
+        }
+        if (algorithm == AIPlayer.Algorithm.ALPHA_BETA && (searchDepth < 1 || searchDepth > MAX_DEPTH)) {
+            throw new IllegalArgumentException("Search depth must be between 1 and " + MAX_DEPTH);
+        }
+        this.algorithm = algorithm;
+        this.searchDepth = searchDepth;
+        this.table = ttEntries > 0 && algorithm == AIPlayer.Algorithm.ALPHA_BETA ? new TranspositionTable(ttEntries) : null;
+        this.solver = algorithm == AIPlayer.Algorithm.EXACT ? new LatticeSolver() : null;
+    }
+
+    public long getNodesChecked() { return nodesChecked; }
+    public EvalWeights getEvalWeights() { return evalWeights; }
+
+    // As in AIPlayer, scores from other weights do not mix with the old ones. EXACT does not evaluate.
+    public void setEvalWeights(EvalWeights weights) {
+        this.evalWeights = weights;
+        if (table != null) table.clear();
+    }
+
+    public void resetGameStats() {
+        if (table != null) table.clear();
+    }
+
+    static long pack(int twos, int threes, int playerScore, int compScore, boolean playerTurn) {
+        return PackedState.pack(twos | threes << THREES_SHIFT, playerScore, compScore, playerTurn);
+    }
+
+    // Same scoring as PackedState.makeMove; the divisor takes one factor off the cell instead.
+    static long makeMove(long state, int divisor) {
+        int cell = PackedState.currentNum(state);
+        boolean playerTurn = PackedState.isPlayerTurn(state);
+        int playerScore = PackedState.playerScore(state);
+        int compScore = PackedState.compScore(state);
+        if (divisor == 2) {
+            if (playerTurn) compScore += 2; else playerScore += 2;
+            cell -= 1;
+        } else {
+            if (playerTurn) playerScore += 3; else compScore += 3;
+            cell -= 1 << THREES_SHIFT;
+        }
+        return PackedState.pack(cell, playerScore, compScore, !playerTurn);
+    }
+
+    public Move findBestMove(LargeGameState state) {
+        nodesChecked = 0;
+        if (state.isGameOver()) return null;
+        if (state.getRemainingPlies() > MAX_PLIES) {
+            throw new IllegalArgumentException("Positions with more than " + MAX_PLIES + " plies left are not supported");
+        }
+        // Table keys hold the cell, not the residual, so entries from a start with another residual
+        // would describe other numbers.
+        if (state.smallResidual != smallResidual && table != null) table.clear();
+        smallResidual = state.smallResidual;
+        long root = pack(state.twos, state.threes, state.playerScore, state.compScore, state.isPlayerTurn);
+        if (algorithm == AIPlayer.Algorithm.EXACT) {
+            solver.prepare(state.twos, state.threes, state.smallResidual, state.compScore - state.playerScore,
+                    state.isPlayerTurn);
+        }
+
+        int chosenDivisor = 0;
+        int bestScore = Integer.MIN_VALUE;
+        for (int divisor = 2; divisor <= 3; divisor++) {
+            if (!state.isMoveValid(divisor)) continue;
+            int score = algorithm == AIPlayer.Algorithm.EXACT ? solver.valueAfter(divisor)
+                    : alphaBeta(makeMove(root, divisor), searchDepth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+            if (score > bestScore) {
+                bestScore = score;
+                chosenDivisor = divisor;
+            }
+        }
+        if (algorithm == AIPlayer.Algorithm.EXACT) nodesChecked = solver.getStatesSolved();
+        return Move.of(chosenDivisor);
+    }
+
+    int alphaBeta(long state, int currentDepth, int alpha, int beta, boolean isMaximizingPlayer) {
+        nodesChecked++;
+        int cell = PackedState.currentNum(state);
+        int twos = cell & TWOS_MASK;
+        int threes = cell >>> THREES_SHIFT;
+        int possibleMoves = (twos > 0 ? PackedState.MOVE_DIV2 : 0) | (threes > 0 ? PackedState.MOVE_DIV3 : 0);
+        int num = LargeGameState.smallValue(smallResidual, twos, threes);
+        if (currentDepth == 0 || possibleMoves == 0 || num <= GameLogic.GAME_END_THRESHOLD) {
+            int scoreDiff = PackedState.scoreDiff(state);
+            return evalWeights == EvalWeights.DEFAULT ? AIPlayer.evaluate(scoreDiff, num, possibleMoves)
+                    : evalWeights.evaluate(scoreDiff, num, possibleMoves);
+        }
+
+        long key = 0;
+        int depth = Math.min(currentDepth, twos + threes);
+        int alphaOrig = alpha, betaOrig = beta;
+        int firstDivisor = 0;
+        if (table != null) {
+            key = TranspositionTable.key(state, isMaximizingPlayer);
+            int cached = table.probe(key, depth, alpha, beta);
+            if (cached != TranspositionTable.NO_VALUE) return cached;
+            firstDivisor = table.bestMove(key);
+        }
+
+        int bestScore = isMaximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int bestDivisor = 0;
+        for (int k = 0; k < 2; k++) {
+            int divisor = firstDivisor == 3 ? 3 - k : 2 + k;
+            if ((possibleMoves & PackedState.moveBit(divisor)) == 0) continue;
+            int score = alphaBeta(makeMove(state, divisor), currentDepth - 1, alpha, beta, !isMaximizingPlayer);
+            if (isMaximizingPlayer ? score > bestScore : score < bestScore) {
+                bestScore = score;
+                bestDivisor = divisor;
+            }
+            if (isMaximizingPlayer) alpha = Math.max(alpha, score); else beta = Math.min(beta, score);
+            if (beta <= alpha) break;
+        }
+        if (table != null) table.store(key, depth, bestScore, alphaOrig, betaOrig, bestDivisor);
+        return bestScore;
+    }
+
+    // Plays the engine against itself from the given start and prints every move.
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException(
+                    "Usage: java LargeNumberPlayer <start> [--engine ALPHA_BETA:12[@weights file]|EXACT] [--player-first]");
+        }
+        BigInteger start = new BigInteger(args[0]);
+        Tournament.EngineSpec spec = Tournament.EngineSpec.parse("ALPHA_BETA:12");
+        boolean playerFirst = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--engine": spec = Tournament.EngineSpec.parse(args[++i]); break;
+                case "--player-first": playerFirst = true; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        LargeGameState state = new LargeGameState(start, playerFirst);
+        LargeNumberPlayer[] seats = {new LargeNumberPlayer(spec.algorithm, spec.depth),
+                new LargeNumberPlayer(spec.algorithm, spec.depth)};
+        for (LargeNumberPlayer seat : seats) seat.setEvalWeights(spec.weights);
+        System.out.println(spec + " vs itself from " + state);
+        long totalNanos = 0;
+        for (int ply = 1; !state.isGameOver(); ply++) {
+            int mover = state.isPlayerTurn() ? 1 : 0;
+            long startTime = System.nanoTime();
+            Move move = seats[mover].findBestMove(mover == 1 ? state.mirrored() : state);
+            long elapsed = System.nanoTime() - startTime;
+            totalNanos += elapsed;
+            state.makeMove(move.getDivisor());
+            System.out.printf(Locale.ROOT, "%3d %-8s /%d  %10d nodes %10s  2^%d * 3^%d left%n", ply,
+                    mover == 1 ? "player" : "computer", move.getDivisor(), seats[mover].getNodesChecked(),
+                    MatchupStats.formatNanos(elapsed), state.getTwos(), state.getThrees());
+        }
+        System.out.println("Final: " + state);
+        System.out.println("Search time " + MatchupStats.formatNanos(totalNanos));
+    }
+}
@@ -0,0 +1,66 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// Check that a LargeNumberPlayer reused across games picks the same moves as a fresh one per game. The
+// transposition table is keyed by the lattice cell, which only means the same number for the same
+// residual, so consecutive games alternate between starts with different residuals. Starts are the
+// int range the GUI uses plus random residuals times powers of 2 and 3 past 10^18.
+// Usage: java LargeNumberPlayerCheck [--depth D] [--games N] [--seed S]
+// Exits with status 1 if a single move differs.
+public class LargeNumberPlayerCheck {
+    public static void main(String[] args) {
+        int depth = 20;
+        int games = 200;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth": depth = Integer.parseInt(args[++i]); break;
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Integer> intStarts = GameLogic.getAllStartNumbers();
+        List<BigInteger> starts = new ArrayList<>();
+        for (int i = 0; i < games; i++) {
+            if (i % 2 == 0) {
+                starts.add(BigInteger.valueOf(intStarts.get(random.nextInt(intStarts.size()))));
+            } else {
+                BigInteger residual = BigInteger.valueOf(6L * random.nextInt(1, 1000) + (random.nextBoolean() ? 1 : 5));
+                starts.add(residual.shiftLeft(random.nextInt(20, 50)).multiply(BigInteger.valueOf(3).pow(random.nextInt(10, 30))));
+            }
+        }
+
+        LargeNumberPlayer[] reused = {new LargeNumberPlayer(AIPlayer.Algorithm.ALPHA_BETA, depth),
+                new LargeNumberPlayer(AIPlayer.Algorithm.ALPHA_BETA, depth)};
+        long positions = 0, mismatches = 0;
+        for (BigInteger start : starts) {
+            LargeNumberPlayer[] fresh = {new LargeNumberPlayer(AIPlayer.Algorithm.ALPHA_BETA, depth),
+                    new LargeNumberPlayer(AIPlayer.Algorithm.ALPHA_BETA, depth)};
+            LargeGameState state = new LargeGameState(start, random.nextBoolean());
+            while (!state.isGameOver()) {
+                int mover = state.isPlayerTurn() ? 1 : 0;
+                LargeGameState view = mover == 1 ? state.mirrored() : state;
+                int expected = fresh[mover].findBestMove(view).getDivisor();
+                int actual = reused[mover].findBestMove(view).getDivisor();
+                positions++;
+                if (actual != expected) {
+                    mismatches++;
+                    if (mismatches <= 10) {
+                        System.out.println("Mismatch at " + state + ": reused /" + actual + ", fresh /" + expected);
+                    }
+                }
+                state.makeMove(expected);
+            }
+        }
+
+        System.out.printf(Locale.ROOT, "ALPHA_BETA:%d, %d games, %d positions: %d moves differ%n",
+                depth, starts.size(), positions, mismatches);
+        if (mismatches != 0) System.exit(1);
+    }
+}
@@ -0,0 +1,83 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Log-linear histogram of nanosecond latencies: 16 sub-buckets per power of two (about 6% error),
+// fixed size, and mergeable by adding counts so partial results can be combined exactly.
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    final long[] counts = new long[BUCKETS];
+    long total;
+    long max;
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) Math.max(0, value);
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (msb - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int msb = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (msb - SUB_BUCKET_BITS)) - 1;
+    }
+
+    public void record(long value) {
+        counts[bucketOf(value)]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    // Only the non-empty buckets are written, as (index, count) pairs.
+    public void writeTo(DataOutput out) throws IOException {
+        int used = 0;
+        for (long count : counts) if (count != 0) used++;
+        out.writeLong(total);
+        out.writeLong(max);
+        out.writeInt(used);
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] == 0) continue;
+            out.writeShort(i);
+            out.writeLong(counts[i]);
+        }
+    }
+
+    public static LatencyHistogram readFrom(DataInput in) throws IOException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.total = in.readLong();
+        histogram.max = in.readLong();
+        int used = in.readInt();
+        for (int i = 0; i < used; i++) {
+            int bucket = in.readShort();
+            if (bucket < 0 || bucket >= BUCKETS) throw new IOException("Bad histogram bucket " + bucket);
+            histogram.counts[bucket] = in.readLong();
+        }
+        return histogram;
+    }
+
+    public long getCount() { return total; }
+    public long getMax() { return max; }
+
+    // Upper edge of the bucket holding the given percentile, capped at the largest recorded value.
+    public long percentile(double percent) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percent / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.Arrays;
+
+// Every position reachable from a number N is N / (2^i * 3^j), so a game is a walk on the
+// (v2+1) x (v3+1) grid of exponents, and N itself only matters through v2, v3 and the residual
+// N / (2^v2 * 3^v3) that decides where the end threshold falls. The side to move and the searching
+// role follow from the ply i + j, and the score difference from the cell and p, the number of
+// divisions by 2 made on the root mover's plies; so (cell, p) is the whole state, with at most
+// min(v2, v3) + 1 values of p per cell. Values match what minimax would return with unlimited depth,
+// using the engine's terminal scoring.
+public class LatticeSolver {
+    static final long MAX_STATES = 1L << 26;
+
+    private int v2;
+    private int v3;
+    private int smallResidual;
+    private int rootDiff;
+    private boolean rootPlayerTurn;
+    private int stride;
+    private int[] values = new int[0];
+    private int[] stamps = new int[0];
+    private int stamp;
+    long statesSolved;
+
+    public long getStatesSolved() { return statesSolved; }
+
+    public void prepare(long rootState) {
+        int num = PackedState.currentNum(rootState);
+        int twos = 0;
+        int threes = 0;
+        int rest = num;
+        if (num > 0) {
+            twos = Integer.numberOfTrailingZeros(num);
+            for (rest = num >> twos; rest % 3 == 0; rest /= 3) threes++;
+        }
+        prepare(twos, threes, rest, PackedState.scoreDiff(rootState), PackedState.isPlayerTurn(rootState));
+    }
+
+    // smallResidual may be saturated (see LargeGameState.smallValue); only whether cells fall below
+    // the end threshold depends on it.
+    public void prepare(int v2, int v3, int smallResidual, int rootDiff, boolean rootPlayerTurn) {
+        this.v2 = v2;
+        this.v3 = v3;
+        this.smallResidual = smallResidual;
+        this.rootDiff = rootDiff;
+        this.rootPlayerTurn = rootPlayerTurn;
+        this.stride = Math.min(v2, v3) + 1;
+        statesSolved = 0;
+
+        long size = (long) (v2 + 1) * (v3 + 1) * stride;
+        if (size > MAX_STATES) {
+            throw new IllegalArgumentException("Lattice of 2^" + v2 + " * 3^" + v3 + " is too large to solve exactly");
+        }
+        if (values.length < size) {
+            values = new int[(int) size];
+            stamps = new int[(int) size];
+            stamp = 0;
+        }
+        if (++stamp == 0) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+
+    public int solve(long rootState) {
+        prepare(rootState);
+        return value(0, 0, 0);
+    }
+
+    // Value of the root's child after the given divisor; prepare() must have been called first.
+    public int valueAfter(int divisor) {
+        return divisor == 2 ? value(1, 0, 1) : value(0, 1, 0);
+    }
+
+    // Of the (i + j + 1) / 2 root-mover plies, p divided by 2 and the rest by 3; the other side made
+    // the remaining divisions. Each root-mover division by 2 or opponent division by 3 moves the
+    // difference towards the computer when the root mover is the player.
+    private int scoreDelta(int i, int j, int p) {
+        int rootMoverPlies = (i + j + 1) >> 1;
+        int delta = 10 * p - 2 * i + 3 * j - 6 * rootMoverPlies;
+        return rootPlayerTurn ? delta : -delta;
+    }
+
+    private int value(int i, int j, int p) {
+        int ply = i + j;
+        int lowestP = Math.max(0, ((ply + 1) >> 1) - j);
+        int index = (i * (v3 + 1) + j) * stride + p - lowestP;
+        if (stamps[index] == stamp) return values[index];
+        statesSolved++;
+
+        boolean canDiv2 = i < v2;
+        boolean canDiv3 = j < v3;
+        int result;
+        if ((!canDiv2 && !canDiv3)
+                || LargeGameState.smallValue(smallResidual, v2 - i, v3 - j) <= GameLogic.GAME_END_THRESHOLD) {
+            result = AIPlayer.terminalScore(rootDiff + scoreDelta(i, j, p));
+        } else {
+            boolean oddPly = (ply & 1) == 1;
+            boolean isMaximizingPlayer = !oddPly;
+            result = isMaximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            if (canDiv2) {
+                int score = value(i + 1, j, oddPly ? p : p + 1);
+                result = isMaximizingPlayer ? Math.max(result, score) : Math.min(result, score);
+            }
+            if (canDiv3) {
+                int score = value(i, j + 1, p);
+                result = isMaximizingPlayer ? Math.max(result, score) : Math.min(result, score);
+            }
+        }
+        stamps[index] = stamp;
+        values[index] = result;
+        return result;
+    }
+}
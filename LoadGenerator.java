@@ -0,0 +1,159 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Load generator for GameServer: every connection plays whole games back to back with random legal
+// player moves until the time is up. Reports request throughput, BUSY replies and request latency
+// percentiles, merged from one LatencyHistogram per connection.
+// Usage: java LoadGenerator [--host 127.0.0.1] [--port 7878] [--connections 64] [--seconds 10]
+//                           [--engine ALPHA_BETA:6] [--seed 1]
+public class LoadGenerator {
+    static final long BUSY_BACKOFF_MS = 1;
+
+    static class Client implements Runnable {
+        final String host;
+        final int port;
+        final String engine;
+        final long deadlineNanos;
+        final Random random;
+        final List<Integer> startNumbers = GameLogic.getAllStartNumbers();
+        final LatencyHistogram latency = new LatencyHistogram();
+        long requests;
+        long games;
+        long busy;
+        long errors;
+        BufferedReader in;
+        BufferedWriter out;
+
+        Client(String host, int port, String engine, long deadlineNanos, long seed) {
+            this.host = host;
+            this.port = port;
+            this.engine = engine;
+            this.deadlineNanos = deadlineNanos;
+            this.random = new Random(seed);
+        }
+
+        @Override
+        public void run() {
+            try (Socket socket = new Socket(host, port)) {
+                socket.setTcpNoDelay(true);
+                in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                while (System.nanoTime() - deadlineNanos < 0) playGame();
+            } catch (IOException e) {
+                System.err.println("Connection failed: " + e.getMessage());
+                errors++;
+            }
+        }
+
+        private void playGame() throws IOException {
+            int start = startNumbers.get(random.nextInt(startNumbers.size()));
+            String reply = request("NEW " + start + (random.nextBoolean() ? " player " : " computer ") + engine);
+            if (reply == null) return;
+            String id = field(reply, "id");
+            while (!Boolean.parseBoolean(field(reply, "over"))) {
+                int num = Integer.parseInt(field(reply, "num"));
+                int divisor = num % 2 == 0 && (num % 3 != 0 || random.nextBoolean()) ? 2 : 3;
+                reply = request("MOVE " + id + " " + divisor);
+                if (reply == null) return;
+            }
+            request("END " + id);
+            games++;
+        }
+
+        // Sends one request, retrying after BUSY; returns null on ERR.
+        private String request(String line) throws IOException {
+            while (true) {
+                long start = System.nanoTime();
+                out.write(line);
+                out.write('\n');
+                out.flush();
+                String reply = in.readLine();
+                latency.record(System.nanoTime() - start);
+                requests++;
+                if (reply == null) throw new IOException("Server closed the connection");
+                if (reply.startsWith("OK")) return reply;
+                if (reply.startsWith("BUSY")) {
+                    busy++;
+                    try {
+                        Thread.sleep(BUSY_BACKOFF_MS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted");
+                    }
+                    continue;
+                }
+                errors++;
+                return null;
+            }
+        }
+    }
+
+    static String field(String reply, String name) {
+        int at = reply.indexOf(" " + name + "=");
+        if (at < 0) throw new IllegalStateException("No " + name + " in reply: " + reply);
+        int from = at + name.length() + 2;
+        int to = reply.indexOf(' ', from);
+        return reply.substring(from, to < 0 ? reply.length() : to);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String host = InetAddress.getLoopbackAddress().getHostAddress();
+        int port = GameServer.DEFAULT_PORT;
+        int connections = 64;
+        int seconds = 10;
+        String engine = "ALPHA_BETA:6";
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host": host = args[++i]; break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--connections": connections = Integer.parseInt(args[++i]); break;
+                case "--seconds": seconds = Integer.parseInt(args[++i]); break;
+                case "--engine": engine = args[++i]; break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        long startTime = System.nanoTime();
+        long deadline = startTime + seconds * 1_000_000_000L;
+        List<Client> clients = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            Client client = new Client(host, port, engine, deadline, seed + i);
+            clients.add(client);
+            Thread thread = new Thread(client, "load-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+        double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+
+        LatencyHistogram latency = new LatencyHistogram();
+        long requests = 0, games = 0, busy = 0, errors = 0;
+        for (Client client : clients) {
+            latency.add(client.latency);
+            requests += client.requests;
+            games += client.games;
+            busy += client.busy;
+            errors += client.errors;
+        }
+        System.out.printf(Locale.ROOT, "%d connections, %.1f s: %d requests (%.0f/s), %d games (%.0f/s), " +
+                        "%d busy, %d errors%n", connections, elapsedSeconds, requests, requests / elapsedSeconds,
+                games, games / elapsedSeconds, busy, errors);
+        System.out.printf("latency p50 %s  p90 %s  p99 %s  p99.9 %s  max %s%n",
+                MatchupStats.formatNanos(latency.percentile(50)), MatchupStats.formatNanos(latency.percentile(90)),
+                MatchupStats.formatNanos(latency.percentile(99)), MatchupStats.formatNanos(latency.percentile(99.9)),
+                MatchupStats.formatNanos(latency.getMax()));
+    }
+}
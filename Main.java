@@ -1,13 +1,36 @@
-import javax.swing.SwingUtilities;
-
-public class Main {
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-                new GameGUI();
-            }
-        });
-    }
-}
-
+import javax.swing.SwingUtilities;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class Main {
+    // "--server [options]" runs the headless GameServer instead of the GUI.
+    // GUI options: [--experiments N] [--log-lines N] [--log-file file]
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--server")) {
+            GameServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        int experiments = GameGUI.NUM_EXPERIMENTS;
+        int logLines = MessageLog.DEFAULT_CAPACITY;
+        Path logFile = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--experiments": experiments = Integer.parseInt(args[++i]); break;
+                case "--log-lines": logLines = Integer.parseInt(args[++i]); break;
+                case "--log-file": logFile = Paths.get(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        int numExperiments = experiments;
+        int logCapacity = logLines;
+        Path spillFile = logFile;
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                new GameGUI(numExperiments, logCapacity, spillFile);
+            }
+        });
+    }
+}
+
@@ -0,0 +1,121 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Locale;
+
+// Aggregated results of one engine pairing. Everything is a count or a histogram, so two partial
+// MatchupStats for the same pairing merge exactly with add().
+public class MatchupStats {
+    static final double Z_95 = 1.959964;
+
+    final String firstEngine;
+    final String secondEngine;
+    long games;
+    long firstWins;
+    long secondWins;
+    long draws;
+    final long[] moves = new long[2];
+    final long[] nodes = new long[2];
+    final LatencyHistogram[] latency = {new LatencyHistogram(), new LatencyHistogram()};
+
+    public MatchupStats(String firstEngine, String secondEngine) {
+        this.firstEngine = firstEngine;
+        this.secondEngine = secondEngine;
+    }
+
+    public String getName() { return firstEngine + " vs " + secondEngine; }
+
+    // winner: 0 for the first engine, 1 for the second, -1 for a draw.
+    public void recordGame(int winner) {
+        games++;
+        if (winner == 0) firstWins++;
+        else if (winner == 1) secondWins++;
+        else draws++;
+    }
+
+    public void recordMove(int engine, long nodesChecked, long nanos) {
+        moves[engine]++;
+        nodes[engine] += nodesChecked;
+        latency[engine].record(nanos);
+    }
+
+    public void add(MatchupStats other) {
+        games += other.games;
+        firstWins += other.firstWins;
+        secondWins += other.secondWins;
+        draws += other.draws;
+        for (int i = 0; i < 2; i++) {
+            moves[i] += other.moves[i];
+            nodes[i] += other.nodes[i];
+            latency[i].add(other.latency[i]);
+        }
+    }
+
+    // Everything add() merges; the engine names are not written, the reader already knows the pairing.
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(games);
+        out.writeLong(firstWins);
+        out.writeLong(secondWins);
+        out.writeLong(draws);
+        for (int i = 0; i < 2; i++) {
+            out.writeLong(moves[i]);
+            out.writeLong(nodes[i]);
+            latency[i].writeTo(out);
+        }
+    }
+
+    public static MatchupStats readFrom(DataInput in, String firstEngine, String secondEngine) throws IOException {
+        MatchupStats stats = new MatchupStats(firstEngine, secondEngine);
+        stats.games = in.readLong();
+        stats.firstWins = in.readLong();
+        stats.secondWins = in.readLong();
+        stats.draws = in.readLong();
+        for (int i = 0; i < 2; i++) {
+            stats.moves[i] = in.readLong();
+            stats.nodes[i] = in.readLong();
+            stats.latency[i] = LatencyHistogram.readFrom(in);
+        }
+        return stats;
+    }
+
+    // Wilson score interval, which stays inside [0, 1] even for rates near 0% or 100%.
+    static double[] wilsonInterval(long successes, long trials) {
+        if (trials == 0) return new double[]{0, 0};
+        double p = (double) successes / trials;
+        double z2 = Z_95 * Z_95;
+        double denominator = 1 + z2 / trials;
+        double centre = (p + z2 / (2 * trials)) / denominator;
+        double margin = Z_95 * Math.sqrt(p * (1 - p) / trials + z2 / (4.0 * trials * trials)) / denominator;
+        return new double[]{Math.max(0, centre - margin), Math.min(1, centre + margin)};
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%s  (%d games)%n", getName(), games));
+        sb.append(rateLine(firstEngine + " wins", firstWins));
+        sb.append(rateLine(secondEngine + " wins", secondWins));
+        sb.append(rateLine("Draws", draws));
+        String[] names = {firstEngine, secondEngine};
+        for (int i = 0; i < 2; i++) {
+            LatencyHistogram h = latency[i];
+            sb.append(String.format(Locale.ROOT,
+                    "  %-16s nodes/move %10.1f  latency p50 %s  p90 %s  p99 %s  max %s%n",
+                    names[i], moves[i] == 0 ? 0.0 : (double) nodes[i] / moves[i],
+                    formatNanos(h.percentile(50)), formatNanos(h.percentile(90)),
+                    formatNanos(h.percentile(99)), formatNanos(h.getMax())));
+        }
+        return sb.toString();
+    }
+
+    private String rateLine(String label, long count) {
+        double[] ci = wilsonInterval(count, games);
+        return String.format(Locale.ROOT, "  %-22s %6.2f%%  [95%% CI %6.2f%% - %6.2f%%]%n",
+                label, games == 0 ? 0.0 : 100.0 * count / games, 100 * ci[0], 100 * ci[1]);
+    }
+
+    static String formatNanos(long nanos) {
+        if (nanos < 10_000) return nanos + "ns";
+        if (nanos < 10_000_000) return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+    }
+}
@@ -0,0 +1,147 @@
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Sink for the GUI message area. append() may be called from any thread and only queues the message;
+// a Swing Timer applies everything queued since the last frame in one document edit, FRAMES_PER_SECOND
+// times a second. The area holds at most capacity messages, oldest removed first, and messages that
+// would be removed before they were ever shown are dropped from the queue instead, so memory stays
+// bounded however fast they arrive. With a spill file every message also goes to the file, written by
+// a background thread; a producer only waits if SPILL_QUEUE_CAPACITY messages are still unwritten.
+// After a write error the file is abandoned and close() reports the error.
+public class MessageLog implements Closeable {
+    static final int DEFAULT_CAPACITY = 2000;
+    static final int FRAMES_PER_SECOND = 30;
+    static final int SPILL_QUEUE_CAPACITY = 1 << 16;
+    private static final String END_OF_SPILL = new String("");
+
+    private final JTextArea area;
+    private final int capacity;
+    private final Timer timer;
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+    // Length of each message shown in the area, newline included; EDT only.
+    private final ArrayDeque<Integer> shownLengths = new ArrayDeque<>();
+    private final BlockingQueue<String> spillQueue;
+    private final Thread spillThread;
+    private volatile IOException spillError;
+    private long dropped;
+
+    public MessageLog(JTextArea area, int capacity, Path spillFile) throws IOException {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+        this.area = area;
+        this.capacity = capacity;
+        if (spillFile != null) {
+            BufferedWriter writer = Files.newBufferedWriter(spillFile);
+            spillQueue = new ArrayBlockingQueue<>(SPILL_QUEUE_CAPACITY);
+            spillThread = new Thread(() -> spill(writer), "message-log-spill");
+            spillThread.setDaemon(true);
+            spillThread.start();
+        } else {
+            spillQueue = null;
+            spillThread = null;
+        }
+        timer = new Timer(1000 / FRAMES_PER_SECOND, e -> flush());
+        timer.start();
+    }
+
+    // Messages dropped, unseen, because more than capacity arrived within one frame.
+    public synchronized long getDropped() { return dropped; }
+
+    public void append(String message) {
+        synchronized (this) {
+            if (pending.size() == capacity) {
+                pending.pollFirst();
+                dropped++;
+            }
+            pending.addLast(message);
+        }
+        if (spillQueue != null && spillError == null) {
+            try {
+                spillQueue.put(message);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Empties the area and drops anything not shown yet; the spill file keeps everything. EDT only.
+    public void clear() {
+        synchronized (this) {
+            pending.clear();
+        }
+        shownLengths.clear();
+        area.setText("");
+    }
+
+    private void flush() {
+        String[] batch;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            batch = pending.toArray(new String[0]);
+            pending.clear();
+        }
+        StringBuilder text = new StringBuilder();
+        for (String message : batch) {
+            text.append(message).append('\n');
+            shownLengths.addLast(message.length() + 1);
+        }
+        int removed = 0;
+        while (shownLengths.size() > capacity) removed += shownLengths.pollFirst();
+
+        Document document = area.getDocument();
+        try {
+            if (removed >= document.getLength()) {
+                area.setText(text.substring(removed - document.getLength()));
+            } else {
+                if (removed > 0) document.remove(0, removed);
+                document.insertString(document.getLength(), text.toString(), null);
+            }
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Message area changed outside the log", e);
+        }
+        area.setCaretPosition(document.getLength());
+    }
+
+    private void spill(BufferedWriter writer) {
+        try (BufferedWriter out = writer) {
+            while (true) {
+                String message = spillQueue.take();
+                if (message == END_OF_SPILL) break;
+                out.write(message);
+                out.newLine();
+                if (spillQueue.isEmpty()) out.flush();
+            }
+        } catch (IOException e) {
+            spillError = e;
+            spillQueue.clear();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Stops the frame timer, shows what is still queued and finishes the spill file. Call on the EDT.
+    @Override
+    public void close() throws IOException {
+        timer.stop();
+        if (SwingUtilities.isEventDispatchThread()) flush();
+        if (spillThread != null) {
+            try {
+                if (spillError == null) spillQueue.put(END_OF_SPILL);
+                spillThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (spillError != null) throw spillError;
+        }
+    }
+}
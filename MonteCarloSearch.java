@@ -0,0 +1,368 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// UCT behind AIPlayer.Algorithm.MCTS, anytime under a playout count, a deadline or a CancellationToken.
+// Nodes live in parallel arrays allocated by the first search and reused by every later one; a node's
+// children are allocated side by side, so a node only records where they start.
+// Tree parallelism: every thread descends the same tree. Visit and reward totals are updated with
+// atomic adds, a virtual loss added on the way down steers concurrent descents apart until the
+// playout's result replaces it, and a CAS on the child index lets exactly one thread expand a node.
+// Rewards are in REWARD_SCALE units for the side that moved into the node: win 1, draw 1/2, loss 0.
+// With a rollout cutoff, playouts stop after that many plies and the evaluation, squashed to a
+// win probability, stands in for the result.
+// Between moves of one game reroot() keeps the subtree of the line actually played: it is copied
+// breadth-first to the front of a second set of arrays, which then swap with the first, so the pool
+// never fills up with the branches that were not played.
+public class MonteCarloSearch {
+    static final int DEFAULT_POOL_NODES = 1 << 18;
+    static final int REWARD_SCALE = 1 << 10;
+    static final double EXPLORATION = 1.0;
+    static final double EVALUATION_SCALE = 5.0;
+    static final int EXPAND_VISITS = 2;
+    static final int VIRTUAL_LOSS = 1;
+    static final int MAX_PLIES = 64;
+    private static final int POLL_MASK = 63;
+    private static final int UNEXPANDED = 0;
+    private static final int EXPANDING = -1;
+    private static final int POOL_FULL = -2;
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    static class Worker {
+        final int[] path = new int[MAX_PLIES + 1];
+        long random;
+        long nodes;
+        int maxDepth;
+    }
+
+    final int poolNodes;
+    final ForkJoinPool pool;
+    final Worker[] workers;
+    long[] states;
+    int[] children;
+    long[] visits;
+    long[] rewards;
+    long[] spareStates;
+    int[] spareChildren;
+    long[] spareVisits;
+    long[] spareRewards;
+    final AtomicInteger size = new AtomicInteger();
+    final AtomicLong playouts = new AtomicLong();
+    long playoutLimit;
+    int rolloutCutoff;
+    EvalWeights evalWeights = EvalWeights.DEFAULT;
+    volatile boolean stopped;
+
+    public MonteCarloSearch(int threads) {
+        this(threads, DEFAULT_POOL_NODES);
+    }
+
+    public MonteCarloSearch(int threads, int poolNodes) {
+        if (threads < 1) throw new IllegalArgumentException("At least one thread is needed");
+        this.poolNodes = poolNodes;
+        this.pool = threads > 1 ? new ForkJoinPool(threads - 1) : null;
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) workers[i] = new Worker();
+    }
+
+    public int getThreads() { return workers.length; }
+    // Every worker claims one playout past the limit before it stops, so the counter can run ahead.
+    public long getPlayouts() { return Math.min(playouts.get(), playoutLimit); }
+    public int getTreeSize() { return Math.min(size.get(), poolNodes); }
+
+    // Plies a playout runs before evaluate decides it; 0 plays every playout to the end of the game.
+    public void setRolloutCutoff(int plies) { this.rolloutCutoff = plies; }
+    public int getRolloutCutoff() { return rolloutCutoff; }
+    public void setEvalWeights(EvalWeights weights) { this.evalWeights = weights; }
+
+    public void shutdown() {
+        if (pool != null) pool.shutdownNow();
+    }
+
+    // Drops the tree and the arrays holding it; the next search allocates them again.
+    public void release() {
+        states = spareStates = null;
+        children = spareChildren = null;
+        visits = spareVisits = rewards = spareRewards = null;
+        size.set(0);
+        playouts.set(0);
+    }
+
+    // Discards the previous tree and roots a new one at the given position.
+    public void start(long rootState) {
+        if (states == null) {
+            states = new long[poolNodes];
+            children = new int[poolNodes];
+            visits = new long[poolNodes];
+            rewards = new long[poolNodes];
+        }
+        size.set(1);
+        initNode(0, rootState);
+        playouts.set(0);
+        playoutLimit = 0;
+        resetWorkers();
+        expand(0);
+    }
+
+    // Roots the search at the given position, keeping what the previous search learnt about it if it is
+    // the previous root or a position one or two plies below it, as after our move and the opponent's
+    // reply. Otherwise the same as start(). Returns the number of playouts kept; run() counts them
+    // towards its limit, so a warm search only makes up the difference.
+    public long reroot(long rootState) {
+        int node = size.get() > 0 && states != null ? findNode(rootState) : -1;
+        if (node < 0) {
+            start(rootState);
+            return 0;
+        }
+        if (node > 0) compactFrom(node);
+        playouts.set(visits[0]);
+        playoutLimit = visits[0];
+        resetWorkers();
+        if (children[0] == UNEXPANDED) expand(0);
+        return visits[0];
+    }
+
+    private int findNode(long state) {
+        if (states[0] == state) return 0;
+        int first = children[0];
+        for (int i = 0; first > 0 && i < Integer.bitCount(PackedState.validMoves(states[0])); i++) {
+            int child = first + i;
+            if (states[child] == state) return child;
+            int grandchildren = children[child];
+            for (int j = 0; grandchildren > 0 && j < Integer.bitCount(PackedState.validMoves(states[child])); j++) {
+                if (states[grandchildren + j] == state) return grandchildren + j;
+            }
+        }
+        return -1;
+    }
+
+    // Copies the subtree under node breadth-first into the spare arrays, keeping each node's children side
+    // by side. Until a copied node is visited its children slot holds the index it was copied from.
+    private void compactFrom(int node) {
+        if (spareStates == null) {
+            spareStates = new long[poolNodes];
+            spareChildren = new int[poolNodes];
+            spareVisits = new long[poolNodes];
+            spareRewards = new long[poolNodes];
+        }
+        copyNode(node, 0);
+        int end = 1;
+        for (int i = 0; i < end; i++) {
+            int source = spareChildren[i];
+            int first = children[source];
+            if (first <= 0) {
+                spareChildren[i] = UNEXPANDED;
+                continue;
+            }
+            spareChildren[i] = end;
+            int count = Integer.bitCount(PackedState.validMoves(states[source]));
+            for (int k = 0; k < count; k++) copyNode(first + k, end++);
+        }
+
+        long[] swapLongs = states; states = spareStates; spareStates = swapLongs;
+        int[] swapInts = children; children = spareChildren; spareChildren = swapInts;
+        swapLongs = visits; visits = spareVisits; spareVisits = swapLongs;
+        swapLongs = rewards; rewards = spareRewards; spareRewards = swapLongs;
+        size.set(end);
+    }
+
+    private void copyNode(int source, int target) {
+        spareStates[target] = states[source];
+        spareChildren[target] = source;
+        spareVisits[target] = visits[source];
+        spareRewards[target] = rewards[source];
+    }
+
+    private void resetWorkers() {
+        for (int i = 0; i < workers.length; i++) {
+            Worker worker = workers[i];
+            worker.random = 0x9E3779B97F4A7C15L * (i + 1);
+            worker.nodes = 0;
+            worker.maxDepth = 0;
+        }
+    }
+
+    private void initNode(int node, long state) {
+        states[node] = state;
+        children[node] = UNEXPANDED;
+        visits[node] = 0;
+        rewards[node] = 0;
+    }
+
+    // Runs playouts on every thread until playoutLimit playouts in total have been made since start(),
+    // the deadline (0 for none) passes, or the search is cancelled or the calling thread interrupted.
+    // Returns false only in the last two cases.
+    public boolean run(long playoutLimit, long deadlineNanos, CancellationToken cancellation) {
+        stopped = false;
+        playouts.set(getPlayouts());
+        this.playoutLimit = playoutLimit;
+        List<Future<?>> helpers = new ArrayList<>();
+        for (int i = 1; i < workers.length; i++) {
+            Worker worker = workers[i];
+            helpers.add(pool.submit(() -> runWorker(worker, playoutLimit, deadlineNanos, cancellation)));
+        }
+        boolean completed = runWorker(workers[0], playoutLimit, deadlineNanos, cancellation);
+        if (Thread.currentThread().isInterrupted()) {
+            stopped = true;
+            completed = false;
+        }
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (InterruptedException e) {
+                stopped = true;
+                completed = false;
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Playout failed", e.getCause());
+            }
+        }
+        return completed;
+    }
+
+    private boolean runWorker(Worker worker, long playoutLimit, long deadlineNanos, CancellationToken cancellation) {
+        for (long local = 0; ; local++) {
+            if ((local & POLL_MASK) == 0) {
+                if (stopped) return false;
+                if (cancellation != null && cancellation.isCancelled()
+                        || worker == workers[0] && Thread.currentThread().isInterrupted()) {
+                    stopped = true;
+                    return false;
+                }
+                if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0) return true;
+            }
+            if (playouts.getAndIncrement() >= playoutLimit) return true;
+            playout(worker);
+        }
+    }
+
+    private void playout(Worker worker) {
+        int[] path = worker.path;
+        int node = 0;
+        int length = 0;
+        path[length++] = node;
+        LONGS.getAndAdd(visits, node, (long) VIRTUAL_LOSS);
+        while (length <= MAX_PLIES) {
+            long state = states[node];
+            if (PackedState.isGameOver(state)) break;
+            int first = (int) INTS.getAcquire(children, node);
+            if (first == UNEXPANDED && (long) LONGS.getOpaque(visits, node) >= EXPAND_VISITS) {
+                first = expand(node);
+            }
+            if (first <= 0) break;
+            node = select(node, first);
+            LONGS.getAndAdd(visits, node, (long) VIRTUAL_LOSS);
+            path[length++] = node;
+        }
+        worker.nodes += length;
+        worker.maxDepth = Math.max(worker.maxDepth, length - 1);
+
+        int computerReward = rollout(worker, states[node]);
+        for (int i = 0; i < length; i++) {
+            int pathNode = path[i];
+            // The player is to move here, so the computer made the move into this node.
+            int reward = PackedState.isPlayerTurn(states[pathNode]) ? computerReward : REWARD_SCALE - computerReward;
+            LONGS.getAndAdd(rewards, pathNode, (long) reward);
+            if (VIRTUAL_LOSS != 1) LONGS.getAndAdd(visits, pathNode, (long) (1 - VIRTUAL_LOSS));
+        }
+    }
+
+    // Returns the index of the node's first child, or a negative marker if another thread is expanding
+    // it or the pool is full, in which case the caller plays out from the node itself.
+    private int expand(int node) {
+        if (!INTS.compareAndSet(children, node, UNEXPANDED, EXPANDING)) {
+            return (int) INTS.getAcquire(children, node);
+        }
+        long state = states[node];
+        int moves = PackedState.validMoves(state);
+        int count = Integer.bitCount(moves);
+        int first = size.getAndAdd(count);
+        if (first + count > poolNodes) {
+            INTS.setRelease(children, node, POOL_FULL);
+            return POOL_FULL;
+        }
+        int child = first;
+        if ((moves & PackedState.MOVE_DIV2) != 0) initNode(child++, PackedState.makeMove(state, 2));
+        if ((moves & PackedState.MOVE_DIV3) != 0) initNode(child, PackedState.makeMove(state, 3));
+        INTS.setRelease(children, node, first);
+        return first;
+    }
+
+    private int select(int node, int first) {
+        if (PackedState.validMoves(states[node]) != (PackedState.MOVE_DIV2 | PackedState.MOVE_DIV3)) return first;
+        long firstVisits = (long) LONGS.getOpaque(visits, first);
+        if (firstVisits == 0) return first;
+        long secondVisits = (long) LONGS.getOpaque(visits, first + 1);
+        if (secondVisits == 0) return first + 1;
+        double logVisits = Math.log((long) LONGS.getOpaque(visits, node));
+        return uct(first, firstVisits, logVisits) >= uct(first + 1, secondVisits, logVisits) ? first : first + 1;
+    }
+
+    private double uct(int node, long nodeVisits, double logParentVisits) {
+        double mean = (long) LONGS.getOpaque(rewards, node) / ((double) nodeVisits * REWARD_SCALE);
+        return mean + EXPLORATION * Math.sqrt(logParentVisits / nodeVisits);
+    }
+
+    // Random moves to the end of the game, or to the cutoff; the result is the computer's reward.
+    private int rollout(Worker worker, long state) {
+        for (int ply = 0; !PackedState.isGameOver(state); ply++) {
+            if (rolloutCutoff > 0 && ply == rolloutCutoff) {
+                return (int) (REWARD_SCALE / (1 + Math.exp(-evalWeights.evaluate(state) / EVALUATION_SCALE)));
+            }
+            int moves = PackedState.validMoves(state);
+            int divisor;
+            if (moves == PackedState.MOVE_DIV2) {
+                divisor = 2;
+            } else if (moves == PackedState.MOVE_DIV3) {
+                divisor = 3;
+            } else {
+                long x = worker.random;
+                x ^= x << 13;
+                x ^= x >>> 7;
+                x ^= x << 17;
+                worker.random = x;
+                divisor = x < 0 ? 3 : 2;
+            }
+            state = PackedState.makeMove(state, divisor);
+            worker.nodes++;
+        }
+        int diff = PackedState.scoreDiff(state);
+        return diff > 0 ? REWARD_SCALE : diff == 0 ? REWARD_SCALE / 2 : 0;
+    }
+
+    // The root move with the most visits; ties go to the smaller divisor.
+    public int bestMove() {
+        int first = children[0];
+        if (first <= 0) return 0;
+        int moves = PackedState.validMoves(states[0]);
+        if (moves != (PackedState.MOVE_DIV2 | PackedState.MOVE_DIV3)) return moves == PackedState.MOVE_DIV2 ? 2 : 3;
+        return visits[first + 1] > visits[first] ? 3 : 2;
+    }
+
+    // Expected result of the best move for the side to move at the root, in percent.
+    public int bestScore() {
+        int first = children[0];
+        if (first <= 0) return 0;
+        int child = bestMove() == 3 && PackedState.validMoves(states[0]) != PackedState.MOVE_DIV3 ? first + 1 : first;
+        return visits[child] == 0 ? 0 : (int) (rewards[child] * 100 / (visits[child] * REWARD_SCALE));
+    }
+
+    public long getNodes() {
+        long nodes = 0;
+        for (Worker worker : workers) nodes += worker.nodes;
+        return nodes;
+    }
+
+    public int getDepthReached() {
+        int depth = 0;
+        for (Worker worker : workers) depth = Math.max(depth, worker.maxDepth);
+        return depth;
+    }
+}
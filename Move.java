@@ -1,12 +1,21 @@
-public class Move {
-    final int divisor;
-
-    public Move(int divisor) {
-        if (divisor != 2 && divisor != 3) throw new IllegalArgumentException("Divisor must be 2 or 3");
-        this.divisor = divisor;
-    }
-
-    public int getDivisor() { return divisor; }
-
-    @Override public String toString() { return "Divide by " + divisor; }
-}
\ No newline at end of file
+public class Move {
+    public static final Move DIVIDE_BY_2 = new Move(2);
+    public static final Move DIVIDE_BY_3 = new Move(3);
+
+    final int divisor;
+
+    public Move(int divisor) {
+        if (divisor != 2 && divisor != 3) throw new IllegalArgumentException("Divisor must be 2 or 3");
+        this.divisor = divisor;
+    }
+
+    public static Move of(int divisor) {
+        if (divisor == 2) return DIVIDE_BY_2;
+        if (divisor == 3) return DIVIDE_BY_3;
+        throw new IllegalArgumentException("Divisor must be 2 or 3");
+    }
+
+    public int getDivisor() { return divisor; }
+
+    @Override public String toString() { return "Divide by " + divisor; }
+}
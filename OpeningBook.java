@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Read-only view of a book written by OpeningBookGenerator. The file is mapped but never load()ed,
+// so opening it costs one page for the header and entries are paged in on first lookup.
+//
+// Layout (big-endian): header {int magic, short version, short entrySize, int minStart,
+// int maxStart, int step, int startCount}, then per start number SLOTS_PER_START entries of
+// {byte divisor, short score}: computer starts, then player starts, each as the start
+// position followed by the positions after the starter divided by 2 and by 3.
+public class OpeningBook {
+    static final int MAGIC = 0x44434F42;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int ENTRY_SIZE = 3;
+    static final int SLOTS_PER_START = 6;
+    static final String DEFAULT_FILE = "opening.book";
+
+    private final MappedByteBuffer buffer;
+    final int minStart;
+    final int maxStart;
+    final int step;
+    final int startCount;
+    final int firstStart;
+
+    private OpeningBook(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an opening book");
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION || buffer.getShort(6) != ENTRY_SIZE) {
+            throw new IOException("Unsupported opening book version " + version);
+        }
+        this.minStart = buffer.getInt(8);
+        this.maxStart = buffer.getInt(12);
+        this.step = buffer.getInt(16);
+        this.startCount = buffer.getInt(20);
+        this.firstStart = (minStart + step - 1) / step * step;
+        if (step <= 0 || buffer.capacity() < HEADER_SIZE + (long) startCount * SLOTS_PER_START * ENTRY_SIZE) {
+            throw new IOException("Truncated opening book");
+        }
+    }
+
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static OpeningBook openDefault() {
+        Path file = Paths.get(DEFAULT_FILE);
+        if (!Files.isRegularFile(file)) return null;
+        try {
+            return open(file);
+        } catch (IOException e) {
+            System.err.println("Warning: ignoring opening book " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public int getMinStart() { return minStart; }
+    public int getMaxStart() { return maxStart; }
+    public int getStartCount() { return startCount; }
+
+    // Returns the book divisor for the position, or 0 when the position is not covered.
+    public int lookup(long state) {
+        int slot = slotOf(state);
+        return slot < 0 ? 0 : buffer.get(HEADER_SIZE + slot * ENTRY_SIZE);
+    }
+
+    public int lookupScore(long state) {
+        int slot = slotOf(state);
+        return slot < 0 ? 0 : buffer.getShort(HEADER_SIZE + slot * ENTRY_SIZE + 1);
+    }
+
+    int slotOf(long state) {
+        int num = PackedState.currentNum(state);
+        int playerScore = PackedState.playerScore(state);
+        int compScore = PackedState.compScore(state);
+        boolean playerTurn = PackedState.isPlayerTurn(state);
+        if (playerScore == 0 && compScore == 0) {
+            return slot(num, playerTurn, 0);
+        }
+        // One move in: the side that is not on move started and either handed the other side 2
+        // points by dividing by 2 or took 3 points by dividing by 3.
+        boolean playerStarted = !playerTurn;
+        int starterScore = playerStarted ? playerScore : compScore;
+        int otherScore = playerStarted ? compScore : playerScore;
+        if (starterScore == 0 && otherScore == 2 && num <= Integer.MAX_VALUE / 2) {
+            return slot(num * 2, playerStarted, 1);
+        }
+        if (starterScore == 3 && otherScore == 0 && num <= Integer.MAX_VALUE / 3) {
+            return slot(num * 3, playerStarted, 2);
+        }
+        return -1;
+    }
+
+    private int slot(int start, boolean playerStarts, int ply) {
+        if (start < firstStart || start > maxStart || (start - firstStart) % step != 0) return -1;
+        int index = (start - firstStart) / step;
+        if (index >= startCount) return -1;
+        return index * SLOTS_PER_START + (playerStarts ? 3 : 0) + ply;
+    }
+}
@@ -0,0 +1,67 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Offline tool: solves every start number GameLogic can hand out and writes an OpeningBook file.
+// Usage: java OpeningBookGenerator [output-file]
+public class OpeningBookGenerator {
+    static final int STEP = 6;
+
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get(args.length > 0 ? args[0] : OpeningBook.DEFAULT_FILE);
+        long startTime = System.nanoTime();
+        int starts = generate(output, GameLogic.MIN_START_NUM, GameLogic.MAX_START_NUM);
+        System.out.println("Wrote " + starts + " start numbers (" + Files.size(output) + " bytes) to " + output +
+                " in " + (System.nanoTime() - startTime) / 1_000_000 + "ms");
+    }
+
+    public static int generate(Path output, int minStart, int maxStart) throws IOException {
+        int firstStart = (minStart + STEP - 1) / STEP * STEP;
+        int startCount = maxStart < firstStart ? 0 : (maxStart - firstStart) / STEP + 1;
+        LatticeSolver solver = new LatticeSolver();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeShort(OpeningBook.VERSION);
+            out.writeShort(OpeningBook.ENTRY_SIZE);
+            out.writeInt(minStart);
+            out.writeInt(maxStart);
+            out.writeInt(STEP);
+            out.writeInt(startCount);
+
+            for (int i = 0; i < startCount; i++) {
+                int start = firstStart + i * STEP;
+                for (boolean playerStarts : new boolean[]{false, true}) {
+                    long root = PackedState.pack(start, 0, 0, playerStarts);
+                    writeEntry(out, solver, root);
+                    writeEntry(out, solver, PackedState.makeMove(root, 2));
+                    writeEntry(out, solver, PackedState.makeMove(root, 3));
+                }
+            }
+        }
+        return startCount;
+    }
+
+    private static void writeEntry(DataOutputStream out, LatticeSolver solver, long state) throws IOException {
+        int bestDivisor = 0;
+        int bestScore = 0;
+        if (!PackedState.isGameOver(state)) {
+            int possibleMoves = PackedState.validMoves(state);
+            bestScore = Integer.MIN_VALUE;
+            solver.prepare(state);
+            for (int divisor = 2; divisor <= 3; divisor++) {
+                if ((possibleMoves & PackedState.moveBit(divisor)) == 0) continue;
+                int score = solver.valueAfter(divisor);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestDivisor = divisor;
+                }
+            }
+        }
+        out.writeByte(bestDivisor);
+        out.writeShort(Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, bestScore)));
+    }
+}
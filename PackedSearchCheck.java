@@ -0,0 +1,169 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Check for the packed-state search core. It plays two roles:
+//  1. findBestMove must choose what the original search chose. For every start number, both starters,
+//     every depth up to --max-depth and both algorithms, it is compared with a copy of the original
+//     recursion: GameState.clone() per node, GameLogic.getValidMoves lists, the first strictly best root
+//     move winning. Engines are checked with a transposition table and without one. Tree reuse is off:
+//     it lets deeper entries from earlier searches answer, which the original search never saw.
+//  2. Search must not allocate. Start numbers keep their trees shallow, so this runs from every
+//     2^i * 3^j in the int range with at least 16 plies left. After warming up, the allocated bytes of
+//     this thread are read from com.sun.management.ThreadMXBean around --searches searches at
+//     --alloc-depth and must be 0.
+// Usage: java PackedSearchCheck [--max-depth D] [--alloc-depth D] [--searches N]
+// Exits with status 1 if a move differs or a search allocates.
+public class PackedSearchCheck {
+    static final AIPlayer.Algorithm[] ALGORITHMS = {AIPlayer.Algorithm.MINIMAX, AIPlayer.Algorithm.ALPHA_BETA};
+
+    public static void main(String[] args) {
+        int maxDepth = 12;
+        int allocDepth = 12;
+        int searches = 200;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--max-depth": maxDepth = Integer.parseInt(args[++i]); break;
+                case "--alloc-depth": allocDepth = Integer.parseInt(args[++i]); break;
+                case "--searches": searches = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        List<Integer> starts = GameLogic.getAllStartNumbers();
+        long positions = 0, mismatches = 0;
+        for (AIPlayer.Algorithm algorithm : ALGORITHMS) {
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                AIPlayer[] engines = engines(algorithm, depth);
+                for (int start : starts) {
+                    for (boolean playerFirst : new boolean[]{false, true}) {
+                        GameState state = new GameState(start, playerFirst);
+                        int expected = originalBestMove(state, algorithm, depth);
+                        for (AIPlayer engine : engines) {
+                            positions++;
+                            int actual = engine.findBestMove(state).getDivisor();
+                            if (actual != expected) {
+                                mismatches++;
+                                if (mismatches <= 10) {
+                                    System.out.println("Mismatch: " + engine.getConfiguration() + " at " + state
+                                            + ": /" + actual + ", original /" + expected);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        System.out.printf(Locale.ROOT, "%d start numbers, depths 1-%d: %d searches, %d moves differ%n",
+                starts.size(), maxDepth, positions, mismatches);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        boolean allocates = false;
+        List<GameState> deepStates = new ArrayList<>();
+        for (long twos = 1; twos <= Integer.MAX_VALUE; twos *= 2) {
+            for (long num = twos; num <= Integer.MAX_VALUE; num *= 3) {
+                if (AIPlayer.remainingPlies((int) num) >= 16) deepStates.add(new GameState((int) num, false));
+            }
+        }
+        GameState[] states = deepStates.toArray(new GameState[0]);
+        String[] labels = {"with table", "without table"};
+        for (int e = 0; e < 4; e++) {
+            AIPlayer engine = engines(ALGORITHMS[e / 2], allocDepth)[e % 2];
+            for (int round = 0; round < 5; round++) {
+                for (GameState state : states) engine.findBestMove(state);
+            }
+
+            long overhead = threads.getThreadAllocatedBytes(threadId);
+            overhead = threads.getThreadAllocatedBytes(threadId) - overhead;
+            long nodes = 0;
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < searches; i++) {
+                engine.findBestMove(states[i % states.length]);
+                nodes += engine.getNodesChecked();
+            }
+            long bytes = threads.getThreadAllocatedBytes(threadId) - before - overhead;
+            System.out.printf(Locale.ROOT, "%s:%d %-13s %d searches, %d nodes: %d bytes allocated (%.4f per node)%n",
+                    ALGORITHMS[e / 2], allocDepth, labels[e % 2], searches, nodes, bytes, bytes / (double) Math.max(1, nodes));
+            if (bytes > 0 || nodes == 0) allocates = true;
+        }
+        if (mismatches != 0 || allocates) System.exit(1);
+    }
+
+    static AIPlayer[] engines(AIPlayer.Algorithm algorithm, int depth) {
+        AIPlayer withTable = new AIPlayer(algorithm, depth);
+        withTable.setTreeReuse(false);
+        return new AIPlayer[]{withTable, new AIPlayer(algorithm, depth, 0)};
+    }
+
+    // The original root: every valid move in getValidMoves order, the first strictly higher score wins.
+    static int originalBestMove(GameState state, AIPlayer.Algorithm algorithm, int depth) {
+        int chosen = 0;
+        int bestScore = Integer.MIN_VALUE;
+        for (Move move : GameLogic.getValidMoves(state)) {
+            GameState next = state.clone();
+            next.makeMove(move.getDivisor());
+            int score = algorithm == AIPlayer.Algorithm.MINIMAX ? minimax(next, depth - 1, false)
+                    : alphaBeta(next, depth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+            if (score > bestScore) {
+                bestScore = score;
+                chosen = move.getDivisor();
+            }
+        }
+        return chosen;
+    }
+
+    static int minimax(GameState state, int depth, boolean isMaximizingPlayer) {
+        if (depth == 0 || state.isGameOver()) return evaluate(state);
+        int best = isMaximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (Move move : GameLogic.getValidMoves(state)) {
+            GameState next = state.clone();
+            next.makeMove(move.getDivisor());
+            int score = minimax(next, depth - 1, !isMaximizingPlayer);
+            best = isMaximizingPlayer ? Math.max(best, score) : Math.min(best, score);
+        }
+        return best;
+    }
+
+    static int alphaBeta(GameState state, int depth, int alpha, int beta, boolean isMaximizingPlayer) {
+        if (depth == 0 || state.isGameOver()) return evaluate(state);
+        int best = isMaximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (Move move : GameLogic.getValidMoves(state)) {
+            GameState next = state.clone();
+            next.makeMove(move.getDivisor());
+            int score = alphaBeta(next, depth - 1, alpha, beta, !isMaximizingPlayer);
+            if (isMaximizingPlayer) {
+                best = Math.max(best, score);
+                alpha = Math.max(alpha, score);
+            } else {
+                best = Math.min(best, score);
+                beta = Math.min(beta, score);
+            }
+            if (beta <= alpha) break;
+        }
+        return best;
+    }
+
+    // The original GameState evaluation, written out rather than delegating to AIPlayer.evaluate.
+    static int evaluate(GameState state) {
+        int scoreDiff = state.getCompScore() - state.getPlayerScore();
+        if (state.isGameOver()) {
+            int winner = GameLogic.checkWinner(state);
+            if (winner == -1) return 10000 + scoreDiff;
+            if (winner == 1) return -10000 + scoreDiff;
+            return 0;
+        }
+        int endProximity = Math.max(0, 100 - (state.getCurrentNum() - GameLogic.GAME_END_THRESHOLD));
+        int proxFactor = 0;
+        if (scoreDiff < 0) proxFactor = -endProximity / 5;
+        else if (scoreDiff > 0) proxFactor = endProximity / 10;
+        boolean canDiv2 = state.isMoveValid(2);
+        boolean canDiv3 = state.isMoveValid(3);
+        int optsBonus = (canDiv2 && canDiv3) ? 3 : 0;
+        int stratBonus = 0;
+        if (canDiv3) stratBonus += 1;
+        if (canDiv2 && !canDiv3) stratBonus -= 1;
+        return scoreDiff + proxFactor + optsBonus + stratBonus;
+    }
+}
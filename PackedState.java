@@ -0,0 +1,61 @@
+// A whole GameState packed into one long so the search can copy positions by value:
+// bits 0-31 current number, 32-46 player score, 47-61 computer score, bit 62 player's turn.
+public class PackedState {
+    static final int MOVE_DIV2 = 1;
+    static final int MOVE_DIV3 = 2;
+
+    private static final long NUM_MASK = 0xFFFFFFFFL;
+    private static final int SCORE_BITS = 15;
+    private static final long SCORE_MASK = (1L << SCORE_BITS) - 1;
+    private static final int PLAYER_SHIFT = 32;
+    private static final int COMP_SHIFT = PLAYER_SHIFT + SCORE_BITS;
+    private static final long PLAYER_TURN = 1L << 62;
+
+    public static long pack(int number, int playerScore, int compScore, boolean playerTurn) {
+        return (number & NUM_MASK)
+                | ((playerScore & SCORE_MASK) << PLAYER_SHIFT)
+                | ((compScore & SCORE_MASK) << COMP_SHIFT)
+                | (playerTurn ? PLAYER_TURN : 0);
+    }
+
+    public static long of(GameState state) {
+        return pack(state.currentNum, state.playerScore, state.compScore, state.isPlayerTurn);
+    }
+
+    public static GameState toGameState(long state) {
+        GameState gameState = new GameState(currentNum(state), isPlayerTurn(state));
+        gameState.playerScore = playerScore(state);
+        gameState.compScore = compScore(state);
+        return gameState;
+    }
+
+    public static int currentNum(long state) { return (int) (state & NUM_MASK); }
+    public static int playerScore(long state) { return (int) ((state >>> PLAYER_SHIFT) & SCORE_MASK); }
+    public static int compScore(long state) { return (int) ((state >>> COMP_SHIFT) & SCORE_MASK); }
+    public static boolean isPlayerTurn(long state) { return (state & PLAYER_TURN) != 0; }
+    public static int scoreDiff(long state) { return compScore(state) - playerScore(state); }
+
+    static int moveBit(int divisor) { return divisor - 1; }
+
+    public static int validMoves(long state) {
+        int num = currentNum(state);
+        return (num % 2 == 0 ? MOVE_DIV2 : 0) | (num % 3 == 0 ? MOVE_DIV3 : 0);
+    }
+
+    public static boolean isGameOver(long state) {
+        return currentNum(state) <= GameLogic.GAME_END_THRESHOLD || validMoves(state) == 0;
+    }
+
+    // Same scoring as GameState.makeMove; the caller is expected to pass a valid divisor.
+    public static long makeMove(long state, int divisor) {
+        boolean playerTurn = isPlayerTurn(state);
+        int playerScore = playerScore(state);
+        int compScore = compScore(state);
+        if (divisor == 2) {
+            if (playerTurn) compScore += 2; else playerScore += 2;
+        } else {
+            if (playerTurn) playerScore += 3; else compScore += 3;
+        }
+        return pack(currentNum(state) / divisor, playerScore, compScore, !playerTurn);
+    }
+}
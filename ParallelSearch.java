@@ -0,0 +1,146 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+// Subtree splitting on a ForkJoinPool. Nodes with at least SEQUENTIAL_CUTOFF plies left fork both
+// children; smaller subtrees run on a private sequential AIPlayer. With at most two moves per node
+// Young-Brothers-Wait would leave nothing to run in parallel, so alpha-beta siblings are searched
+// concurrently with the parent's window instead. That prunes less but returns the same value.
+// With a shared table every worker probes and stores into it, so sibling subtrees reuse each other's results.
+// Every forking node checks the deadline and the token, and workers poll them as the sequential search
+// does; once one trips, or the caller is interrupted, no more subtrees start and isAborted() reports it.
+public class ParallelSearch {
+    static final int SEQUENTIAL_CUTOFF = 5;
+
+    final AIPlayer.Algorithm algorithm;
+    final ForkJoinPool pool;
+    final TranspositionStore sharedTable;
+    final LongAdder nodes = new LongAdder();
+    volatile EvalWeights evalWeights = EvalWeights.DEFAULT;
+    // Per scoreRootMoves call.
+    private volatile long deadlineNanos;
+    private volatile CancellationToken cancellation;
+    private volatile boolean aborted;
+
+    public ParallelSearch(AIPlayer.Algorithm algorithm, int threads) {
+        this(algorithm, threads, null);
+    }
+
+    public ParallelSearch(AIPlayer.Algorithm algorithm, int threads, TranspositionStore sharedTable) {
+        if (algorithm == AIPlayer.Algorithm.EXACT) throw new IllegalArgumentException("EXACT does not search");
+        this.algorithm = algorithm;
+        this.pool = new ForkJoinPool(threads);
+        this.sharedTable = sharedTable;
+    }
+
+    public int getParallelism() { return pool.getParallelism(); }
+    public void setEvalWeights(EvalWeights weights) { this.evalWeights = weights; }
+
+    public int[] scoreRootMoves(long rootState, int possibleMoves, int searchDepth) {
+        return scoreRootMoves(rootState, possibleMoves, searchDepth, 0, null);
+    }
+
+    // Scores every root move on the pool; each root child gets the full window, as in the sequential root.
+    // A deadline of 0 means no deadline. When isAborted() is true afterwards the scores are partial.
+    public int[] scoreRootMoves(long rootState, int possibleMoves, int searchDepth, long deadline,
+                                CancellationToken token) {
+        nodes.reset();
+        deadlineNanos = deadline;
+        cancellation = token;
+        aborted = false;
+        SearchTask div2 = null, div3 = null;
+        if ((possibleMoves & PackedState.MOVE_DIV2) != 0) {
+            div2 = new SearchTask(PackedState.makeMove(rootState, 2), searchDepth - 1,
+                    Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+        }
+        if ((possibleMoves & PackedState.MOVE_DIV3) != 0) {
+            div3 = new SearchTask(PackedState.makeMove(rootState, 3), searchDepth - 1,
+                    Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+        }
+        int[] scores = {Integer.MIN_VALUE, Integer.MIN_VALUE};
+        if (div2 != null) pool.execute(div2);
+        if (div3 != null) pool.execute(div3);
+        try {
+            if (div2 != null) scores[0] = div2.get();
+            if (div3 != null) scores[1] = div3.get();
+        } catch (InterruptedException e) {
+            aborted = true;
+            if (div2 != null) div2.quietlyJoin();
+            if (div3 != null) div3.quietlyJoin();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parallel search failed", e.getCause());
+        }
+        return scores;
+    }
+
+    public long getNodes() { return nodes.sum(); }
+    public boolean isAborted() { return aborted; }
+
+    private boolean checkAborted() {
+        if (!aborted) {
+            CancellationToken token = cancellation;
+            long deadline = deadlineNanos;
+            if (token != null && token.isCancelled() || pool.isShutdown() || deadline != 0 && System.nanoTime() - deadline > 0) {
+                aborted = true;
+            }
+        }
+        return aborted;
+    }
+
+    public void shutdown() { pool.shutdown(); }
+
+    private class SearchTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        final long state;
+        final int depth;
+        final int alpha;
+        final int beta;
+        final boolean isMaximizingPlayer;
+
+        SearchTask(long state, int depth, int alpha, int beta, boolean isMaximizingPlayer) {
+            this.state = state;
+            this.depth = depth;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.isMaximizingPlayer = isMaximizingPlayer;
+        }
+
+        @Override
+        protected Integer compute() {
+            // The value is discarded once aborted, so any score will do.
+            if (checkAborted()) return 0;
+            if (depth < SEQUENTIAL_CUTOFF) {
+                AIPlayer worker = sharedTable != null
+                        ? new AIPlayer(algorithm, depth, sharedTable) : new AIPlayer(algorithm, depth, 0);
+                worker.evalWeights = evalWeights;
+                worker.cancellation = cancellation;
+                worker.deadlineNanos = deadlineNanos;
+                int score = algorithm == AIPlayer.Algorithm.MINIMAX
+                        ? worker.minimax(state, depth, isMaximizingPlayer)
+                        : worker.alphaBeta(state, depth, alpha, beta, isMaximizingPlayer);
+                nodes.add(worker.nodesChecked);
+                if (worker.searchAborted) aborted = true;
+                return score;
+            }
+
+            nodes.increment();
+            if (PackedState.isGameOver(state)) return AIPlayer.evaluate(state);
+            int possibleMoves = PackedState.validMoves(state);
+            if (possibleMoves != (PackedState.MOVE_DIV2 | PackedState.MOVE_DIV3)) {
+                int divisor = possibleMoves == PackedState.MOVE_DIV2 ? 2 : 3;
+                return new SearchTask(PackedState.makeMove(state, divisor), depth - 1, alpha, beta,
+                        !isMaximizingPlayer).compute();
+            }
+
+            SearchTask div2 = new SearchTask(PackedState.makeMove(state, 2), depth - 1, alpha, beta, !isMaximizingPlayer);
+            SearchTask div3 = new SearchTask(PackedState.makeMove(state, 3), depth - 1, alpha, beta, !isMaximizingPlayer);
+            div2.fork();
+            int score3 = div3.compute();
+            int score2 = div2.join();
+            return isMaximizingPlayer ? Math.max(score2, score3) : Math.min(score2, score3);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+// Compares sequential and parallel findBestMove on the same positions and prints nodes/second and speedup.
+// Usage: java ParallelSearchBenchmark [threads] [depth...]
+public class ParallelSearchBenchmark {
+    static final int[] START_NUMBERS = {13824, 15552, 17496, 18432, 19440};
+    static final int REPETITIONS = 20;
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int[] depths = {6, 10, 14};
+        if (args.length > 1) {
+            depths = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) depths[i - 1] = Integer.parseInt(args[i]);
+        }
+
+        System.out.printf("%-10s %-6s %5s %12s %12s %14s %14s %8s %s%n",
+                "algorithm", "start", "depth", "seq ms", "par ms", "seq nodes/s", "par nodes/s", "speedup", "same move");
+        for (AIPlayer.Algorithm algo : new AIPlayer.Algorithm[]{AIPlayer.Algorithm.MINIMAX, AIPlayer.Algorithm.ALPHA_BETA}) {
+            for (int depth : depths) {
+                for (int startNum : START_NUMBERS) {
+                    AIPlayer sequential = new AIPlayer(algo, depth, 0);
+                    AIPlayer parallel = new AIPlayer(algo, depth, 0);
+                    parallel.setParallelism(threads);
+                    GameState state = new GameState(startNum, false);
+
+                    Move sequentialMove = null, parallelMove = null;
+                    long sequentialNanos = 0, parallelNanos = 0, sequentialNodes = 0, parallelNodes = 0;
+                    for (int i = 0; i < REPETITIONS * 2; i++) {
+                        boolean measure = i >= REPETITIONS;
+                        long t0 = System.nanoTime();
+                        sequentialMove = sequential.findBestMove(state);
+                        long t1 = System.nanoTime();
+                        parallelMove = parallel.findBestMove(state);
+                        long t2 = System.nanoTime();
+                        if (measure) {
+                            sequentialNanos += t1 - t0;
+                            parallelNanos += t2 - t1;
+                            sequentialNodes += sequential.getNodesChecked();
+                            parallelNodes += parallel.getNodesChecked();
+                        }
+                    }
+                    parallel.setParallelism(1);
+
+                    System.out.printf("%-10s %-6d %5d %12.3f %12.3f %14d %14d %8.2f %s%n",
+                            algo, startNum, depth,
+                            sequentialNanos / 1e6 / REPETITIONS, parallelNanos / 1e6 / REPETITIONS,
+                            sequentialNodes * 1_000_000_000L / Math.max(1, sequentialNanos),
+                            parallelNodes * 1_000_000_000L / Math.max(1, parallelNanos),
+                            (double) sequentialNanos / Math.max(1, parallelNanos),
+                            sequentialMove.getDivisor() == parallelMove.getDivisor() ? "yes" : "NO");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Flight Recorder event committed by every findBestMove. Any running recording picks it up, e.g.
+// java -XX:StartFlightRecording=filename=search.jfr Main, or jcmd <pid> JFR.start on a live process;
+// without a recording shouldCommit() is false and the event costs next to nothing.
+@Name("divideconquer.Search")
+@Label("Engine Search")
+@Category({"Divide and Conquer", "Engine"})
+@Description("One findBestMove call")
+@StackTrace(false)
+public class SearchEvent extends jdk.jfr.Event {
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Current Number")
+    int currentNum;
+
+    @Label("Move")
+    int divisor;
+
+    @Label("Opening Book Move")
+    boolean fromBook;
+
+    @Label("Score")
+    int score;
+
+    @Label("Depth Reached")
+    int depthReached;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Nodes Per Second")
+    long nodesPerSecond;
+
+    @Label("Effective Branching Factor")
+    double branchingFactor;
+
+    @Label("First-Move Cutoffs")
+    long firstMoveCutoffs;
+
+    @Label("Later-Move Cutoffs")
+    long laterMoveCutoffs;
+
+    @Label("Evaluations")
+    long evaluations;
+
+    @Label("Time In Evaluate")
+    @Timespan(Timespan.NANOSECONDS)
+    long evaluateNanos;
+
+    @Label("TT Hits")
+    long ttHits;
+
+    @Label("TT Misses")
+    long ttMisses;
+
+    @Label("Search Aborted")
+    boolean aborted;
+}
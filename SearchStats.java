@@ -0,0 +1,68 @@
+import java.util.Arrays;
+import java.util.Locale;
+
+// Counters for one findBestMove, reset at the start of every search. Nodes are counted by ply below the
+// root, cutoffs by whether the first or a later move caused them (a well-ordered tree cuts on the first).
+// Timing every evaluate call costs more than the call itself, so evaluateNanos stays 0 unless the
+// engine was asked for detailed timing.
+public class SearchStats {
+    final long[] nodesPerPly = new long[AIPlayer.MAX_ITERATIVE_DEPTH + 1];
+    long firstMoveCutoffs;
+    long laterMoveCutoffs;
+    long evaluations;
+    long evaluateNanos;
+
+    void reset() {
+        Arrays.fill(nodesPerPly, 0);
+        firstMoveCutoffs = 0;
+        laterMoveCutoffs = 0;
+        evaluations = 0;
+        evaluateNanos = 0;
+    }
+
+    public long getNodesAtPly(int ply) { return ply < nodesPerPly.length ? nodesPerPly[ply] : 0; }
+    public long getFirstMoveCutoffs() { return firstMoveCutoffs; }
+    public long getLaterMoveCutoffs() { return laterMoveCutoffs; }
+    public long getEvaluations() { return evaluations; }
+    public long getEvaluateNanos() { return evaluateNanos; }
+
+    public int getDeepestPly() {
+        for (int ply = nodesPerPly.length - 1; ply > 0; ply--) {
+            if (nodesPerPly[ply] != 0) return ply;
+        }
+        return 0;
+    }
+
+    // The b with b + b^2 + ... + b^d = nodes, where d is the deepest ply reached.
+    public double getEffectiveBranchingFactor() {
+        int depth = getDeepestPly();
+        long nodes = 0;
+        for (long count : nodesPerPly) nodes += count;
+        if (depth == 0 || nodes <= depth) return depth == 0 ? 0 : 1;
+        double low = 1, high = nodes;
+        for (int i = 0; i < 60; i++) {
+            double mid = (low + high) / 2;
+            double sum = 0, term = 1;
+            for (int d = 0; d < depth && sum <= nodes; d++) {
+                term *= mid;
+                sum += term;
+            }
+            if (sum > nodes) high = mid; else low = mid;
+        }
+        return low;
+    }
+
+    public double getFirstMoveCutoffRate() {
+        long cutoffs = firstMoveCutoffs + laterMoveCutoffs;
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("nodes/ply [");
+        for (int ply = 1; ply <= getDeepestPly(); ply++) sb.append(ply == 1 ? "" : " ").append(nodesPerPly[ply]);
+        return sb.append(String.format(Locale.ROOT, "], cutoffs %d first / %d later, EBF %.2f, evaluations %d (%d ns)",
+                firstMoveCutoffs, laterMoveCutoffs, getEffectiveBranchingFactor(), evaluations, evaluateNanos))
+                .toString();
+    }
+}
@@ -0,0 +1,125 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Transposition table shared by any number of engines and threads, held off-heap in direct buffers so
+// even multi-GB tables are invisible to the GC. Lock-free: an entry is two longs, the packed data and
+// key ^ data, each written and read with a single opaque access. A reader that catches a slot halfway
+// through another thread's store sees a check word that does not XOR back to its key and treats the
+// slot as empty, so a torn entry is never returned.
+// Data layout: bits 0-31 value, 32-39 depth, 40-41 bound flag, 42-43 best divisor.
+public class SharedTranspositionTable implements TranspositionStore {
+    static final int ENTRY_BYTES = 16;
+    static final int MAX_BUFFER_ENTRIES = 1 << 26;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    final ByteBuffer[] buffers;
+    final long entries;
+    final int bufferBits;
+    final int shift;
+
+    // Rounds down to a power-of-two number of 16-byte entries; at least one entry.
+    public SharedTranspositionTable(long bytes) {
+        if (bytes < ENTRY_BYTES) throw new IllegalArgumentException("Table size must be at least " + ENTRY_BYTES + " bytes");
+        long requested = Long.highestOneBit(bytes / ENTRY_BYTES);
+        int bits = 63 - Long.numberOfLeadingZeros(requested);
+        this.entries = requested;
+        this.bufferBits = Math.min(bits, 63 - Long.numberOfLeadingZeros(MAX_BUFFER_ENTRIES));
+        this.shift = 64 - Math.max(1, bits);
+        int bufferEntries = 1 << bufferBits;
+        this.buffers = new ByteBuffer[(int) (entries / bufferEntries)];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(bufferEntries * ENTRY_BYTES).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    public static SharedTranspositionTable ofMegabytes(int megabytes) {
+        return new SharedTranspositionTable((long) megabytes << 20);
+    }
+
+    long index(long key) {
+        return entries == 1 ? 0 : (key * 0x9E3779B97F4A7C15L) >>> shift;
+    }
+
+    private ByteBuffer bufferOf(long index) { return buffers[(int) (index >>> bufferBits)]; }
+    private int offsetOf(long index) { return (int) (index & ((1L << bufferBits) - 1)) * ENTRY_BYTES; }
+
+    // The slot's data word if it currently holds this key, otherwise 0. Stored entries always have a
+    // depth of at least 1, so their data word is never 0.
+    private long dataFor(long key) {
+        long index = index(key);
+        ByteBuffer buffer = bufferOf(index);
+        int offset = offsetOf(index);
+        long data = (long) LONGS.getOpaque(buffer, offset + 8);
+        long check = (long) LONGS.getOpaque(buffer, offset);
+        return (check ^ data) == key ? data : 0;
+    }
+
+    static long pack(int value, int depth, byte flag, int bestMove) {
+        return (value & 0xFFFFFFFFL) | ((long) Math.min(depth, 255) << 32) | ((long) flag << 40) | ((long) bestMove << 42);
+    }
+
+    static int valueOf(long data) { return (int) data; }
+    static int depthOf(long data) { return (int) (data >>> 32) & 0xFF; }
+    static byte flagOf(long data) { return (byte) ((data >>> 40) & 3); }
+    static int moveOf(long data) { return (int) (data >>> 42) & 3; }
+
+    @Override
+    public int probe(long key, int depth, int alpha, int beta) {
+        long data = dataFor(key);
+        if (data == 0 || depthOf(data) < depth) return TranspositionTable.NO_VALUE;
+        int value = valueOf(data);
+        byte flag = flagOf(data);
+        if (flag == TranspositionTable.EXACT || (flag == TranspositionTable.LOWER && value >= beta)
+                || (flag == TranspositionTable.UPPER && value <= alpha)) {
+            return value;
+        }
+        return TranspositionTable.NO_VALUE;
+    }
+
+    @Override
+    public int bestMove(long key) {
+        long data = dataFor(key);
+        return data == 0 ? 0 : moveOf(data);
+    }
+
+    // Same depth-preferred rule as TranspositionTable. Two threads storing into one slot at once may
+    // leave either entry, or a mix that fails the key check and reads as empty; both are safe.
+    @Override
+    public void store(long key, int depth, int value, int alpha, int beta, int bestMove) {
+        long index = index(key);
+        ByteBuffer buffer = bufferOf(index);
+        int offset = offsetOf(index);
+        long oldData = (long) LONGS.getOpaque(buffer, offset + 8);
+        long oldKey = (long) LONGS.getOpaque(buffer, offset) ^ oldData;
+        if (oldKey != key && oldKey != 0 && (oldKey & 1) != 0 && depthOf(oldData) > depth) return;
+
+        byte flag;
+        if (value <= alpha) flag = TranspositionTable.UPPER;
+        else if (value >= beta) flag = TranspositionTable.LOWER;
+        else flag = TranspositionTable.EXACT;
+        long data = pack(value, depth, flag, bestMove);
+        LONGS.setOpaque(buffer, offset + 8, data);
+        LONGS.setOpaque(buffer, offset, key ^ data);
+    }
+
+    // Raw word of a slot (0 = key ^ data, 1 = data), for SharedTranspositionTableStress.
+    long word(long index, int word) {
+        return (long) LONGS.getOpaque(bufferOf(index), offsetOf(index) + word * 8);
+    }
+
+    @Override public long size() { return entries; }
+    public long getBytes() { return entries * ENTRY_BYTES; }
+
+    // Not atomic with respect to concurrent searches; only call between searches.
+    @Override
+    public void clear() {
+        byte[] zeros = new byte[1 << 16];
+        for (ByteBuffer buffer : buffers) {
+            ByteBuffer view = buffer.duplicate();
+            view.clear();
+            while (view.hasRemaining()) view.put(zeros, 0, Math.min(zeros.length, view.remaining()));
+        }
+    }
+}
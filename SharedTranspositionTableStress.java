@@ -0,0 +1,90 @@
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stress check for SharedTranspositionTable. Many threads hammer a tiny table with stores and probes for a
+// fixed key set. Every key has one fixed payload, so any probe hit that does not carry exactly that
+// payload is a torn or misattributed read. Alongside, raw slot reads count how often a slot is caught
+// mid-store (check word not matching any key); those must all be rejected by probe.
+// Usage: java SharedTranspositionTableStress [--threads N] [--seconds S] [--entries E] [--keys K]
+// Exits with status 1 if a single bad read is seen.
+public class SharedTranspositionTableStress {
+    public static void main(String[] args) throws InterruptedException {
+        int threads = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        int seconds = 5;
+        int entries = 256;
+        int keyCount = 4096;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--seconds": seconds = Integer.parseInt(args[++i]); break;
+                case "--entries": entries = Integer.parseInt(args[++i]); break;
+                case "--keys": keyCount = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        SharedTranspositionTable table = new SharedTranspositionTable((long) entries * SharedTranspositionTable.ENTRY_BYTES);
+        long[] keys = new long[keyCount];
+        SplittableRandom seeds = new SplittableRandom(1);
+        for (int i = 0; i < keyCount; i++) keys[i] = seeds.nextLong() | 1;
+
+        AtomicLong probes = new AtomicLong(), hits = new AtomicLong(), badReads = new AtomicLong();
+        AtomicLong rawReads = new AtomicLong(), tornSlots = new AtomicLong();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = seeds.split();
+            workers[t] = new Thread(() -> {
+                long localProbes = 0, localHits = 0, localBad = 0, localRaw = 0, localTorn = 0;
+                while (System.nanoTime() - deadline < 0) {
+                    for (int i = 0; i < 4096; i++) {
+                        long key = keys[random.nextInt(keys.length)];
+                        int operation = random.nextInt(4);
+                        if (operation < 2) {
+                            table.store(key, 1, valueFor(key), Integer.MIN_VALUE, Integer.MAX_VALUE, moveFor(key));
+                        } else if (operation == 2) {
+                            localProbes++;
+                            int value = table.probe(key, 1, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                            int move = table.bestMove(key);
+                            if (value != TranspositionTable.NO_VALUE) {
+                                localHits++;
+                                if (value != valueFor(key)) localBad++;
+                            }
+                            if (move != 0 && move != moveFor(key)) localBad++;
+                        } else {
+                            localRaw++;
+                            long index = random.nextLong(table.size());
+                            long data = table.word(index, 1);
+                            long check = table.word(index, 0);
+                            if (data != 0 && !isKey(keys, check ^ data)) localTorn++;
+                        }
+                    }
+                }
+                probes.addAndGet(localProbes);
+                hits.addAndGet(localHits);
+                badReads.addAndGet(localBad);
+                rawReads.addAndGet(localRaw);
+                tornSlots.addAndGet(localTorn);
+            }, "stress-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) worker.join();
+
+        System.out.printf(Locale.ROOT, "%d threads, %d entries, %d keys, %d s: %d probes, %d hits, %d bad reads; " +
+                        "%d raw slot reads caught %d slots mid-store%n",
+                threads, table.size(), keyCount, seconds, probes.get(), hits.get(), badReads.get(),
+                rawReads.get(), tornSlots.get());
+        if (badReads.get() != 0) System.exit(1);
+    }
+
+    static int valueFor(long key) { return (int) (key ^ (key >>> 29)) & 0x3FFFFFFF; }
+    static int moveFor(long key) { return (key & 2) == 0 ? 2 : 3; }
+
+    private static boolean isKey(long[] keys, long candidate) {
+        for (long key : keys) {
+            if (key == candidate) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,311 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Headless round-robin between engine configurations over many start numbers, spread across all cores.
+// Usage: java Tournament [--engines ALPHA_BETA:6,MINIMAX:4,EXACT] [--starts all|N] [--seed S]
+//                        [--threads T] [--csv file] [--json file] [--records file]
+// Every pairing plays each start number twice, once with each engine moving first. --records appends
+// every game to a GameRecordLog (the computer seat is the pairing's first engine).
+public class Tournament {
+    static final String DEFAULT_ENGINES = "ALPHA_BETA:6,ALPHA_BETA:2,EXACT";
+
+    // ALGORITHM[:depth][@weights file], e.g. ALPHA_BETA:6@tuned.weights for EvalTuner's output.
+    public static class EngineSpec {
+        final String name;
+        final AIPlayer.Algorithm algorithm;
+        final int depth;
+        final EvalWeights weights;
+
+        EngineSpec(AIPlayer.Algorithm algorithm, int depth) {
+            this(algorithm, depth, EvalWeights.DEFAULT, null);
+        }
+
+        EngineSpec(AIPlayer.Algorithm algorithm, int depth, EvalWeights weights, String weightsName) {
+            this.algorithm = algorithm;
+            this.depth = depth;
+            this.weights = weights;
+            String base = algorithm == AIPlayer.Algorithm.EXACT ? algorithm.name() : algorithm + ":" + depth;
+            this.name = weightsName == null ? base : base + "@" + weightsName;
+        }
+
+        public static EngineSpec parse(String spec) {
+            String[] withWeights = spec.trim().split("@", 2);
+            String[] parts = withWeights[0].split(":");
+            AIPlayer.Algorithm algorithm = AIPlayer.Algorithm.valueOf(parts[0].toUpperCase(Locale.ROOT));
+            int depth = parts.length > 1 ? Integer.parseInt(parts[1]) : 6;
+            if (withWeights.length == 1) return new EngineSpec(algorithm, depth);
+            try {
+                return new EngineSpec(algorithm, depth, EvalWeights.load(Paths.get(withWeights[1])), withWeights[1]);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Cannot read weights " + withWeights[1], e);
+            }
+        }
+
+        AIPlayer create() { return withWeights(new AIPlayer(algorithm, depth)); }
+        AIPlayer create(TranspositionStore sharedTable) { return withWeights(new AIPlayer(algorithm, depth, sharedTable)); }
+
+        private AIPlayer withWeights(AIPlayer player) {
+            if (weights != EvalWeights.DEFAULT) player.setEvalWeights(weights);
+            return player;
+        }
+
+        @Override public String toString() { return name; }
+    }
+
+    public static class GameResult {
+        final int matchup;
+        final int startNum;
+        final boolean firstEngineStarts;
+        int winner;
+        final int[] scores = new int[2];
+        final long[] nodes = new long[2];
+        final long[] nanos = new long[2];
+        final StringBuilder moves = new StringBuilder();
+        final List<long[]> moveStats = new ArrayList<>();
+
+        GameResult(int matchup, int startNum, boolean firstEngineStarts) {
+            this.matchup = matchup;
+            this.startNum = startNum;
+            this.firstEngineStarts = firstEngineStarts;
+        }
+    }
+
+    final List<EngineSpec> engines;
+    final List<int[]> pairings = new ArrayList<>();
+    final List<MatchupStats> stats = new ArrayList<>();
+    final ThreadLocal<Map<String, AIPlayer>> enginePool = ThreadLocal.withInitial(HashMap::new);
+    final List<AIPlayer> createdEngines = Collections.synchronizedList(new ArrayList<>());
+    GameRecordLog recordLog;
+
+    public Tournament(List<EngineSpec> engines) {
+        this.engines = engines;
+        for (int i = 0; i < engines.size(); i++) {
+            for (int j = i + 1; j < engines.size(); j++) {
+                pairings.add(new int[]{i, j});
+                stats.add(new MatchupStats(engines.get(i).name, engines.get(j).name));
+            }
+        }
+    }
+
+    public List<MatchupStats> getStats() { return stats; }
+    public void setRecordLog(GameRecordLog recordLog) { this.recordLog = recordLog; }
+
+    // The first engine sits in the computer seat, the second in the player seat. Both search from their
+    // own side: the player-seat engine is handed the mirrored position.
+    public GameResult playGame(int matchup, int startNum, boolean firstEngineStarts) {
+        int[] pairing = pairings.get(matchup);
+        AIPlayer[] seats = {engineFor(pairing[0], 0), engineFor(pairing[1], 1)};
+        seats[0].resetGameStats();
+        seats[1].resetGameStats();
+
+        GameResult result = new GameResult(matchup, startNum, firstEngineStarts);
+        GameState state = new GameState(startNum, !firstEngineStarts);
+        GameMetrics.gameStarted();
+        while (!state.isGameOver()) {
+            int mover = state.isPlayerTurn() ? 1 : 0;
+            long startTime = System.nanoTime();
+            Move move = seats[mover].findBestMove(mover == 1 ? state.mirrored() : state);
+            long elapsed = System.nanoTime() - startTime;
+            if (move == null) {
+                state.setCurrentNum(GameLogic.GAME_END_THRESHOLD);
+                break;
+            }
+            state.makeMove(move.getDivisor());
+            result.moves.append(move.getDivisor());
+            result.nodes[mover] += seats[mover].getNodesChecked();
+            result.nanos[mover] += elapsed;
+            result.moveStats.add(new long[]{mover, seats[mover].getNodesChecked(), elapsed});
+        }
+
+        result.scores[0] = state.getCompScore();
+        result.scores[1] = state.getPlayerScore();
+        int winner = GameLogic.checkWinner(state);
+        GameMetrics.gameFinished(winner);
+        result.winner = winner == -1 ? 0 : (winner == 1 ? 1 : -1);
+        return result;
+    }
+
+    private AIPlayer engineFor(int engine, int seat) {
+        EngineSpec spec = engines.get(engine);
+        return enginePool.get().computeIfAbsent(seat + "/" + spec.name, k -> {
+            AIPlayer player = spec.create();
+            player.registerMetrics("Tournament " + k + " " + Thread.currentThread().getName());
+            createdEngines.add(player);
+            return player;
+        });
+    }
+
+    public void run(List<Integer> startNumbers, int threads, Writer csv, Writer json)
+            throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CompletionService<GameResult> completion = new ExecutorCompletionService<>(executor);
+            int submitted = 0;
+            for (int matchup = 0; matchup < pairings.size(); matchup++) {
+                for (int startNum : startNumbers) {
+                    for (boolean firstEngineStarts : new boolean[]{true, false}) {
+                        int m = matchup;
+                        completion.submit(() -> playGame(m, startNum, firstEngineStarts));
+                        submitted++;
+                    }
+                }
+            }
+
+            if (csv != null) {
+                csv.write("matchup,start,first_mover,winner,first_score,second_score,plies," +
+                        "first_nodes,second_nodes,first_nanos,second_nanos,moves\n");
+            }
+            for (int i = 0; i < submitted; i++) {
+                GameResult result;
+                try {
+                    result = completion.take().get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Game failed", e.getCause());
+                }
+                record(result);
+                if (csv != null) csv.write(toCsv(result));
+                if (json != null) json.write(toJson(result));
+                if (recordLog != null) recordLog.append(GameRecord.of(result.startNum, !result.firstEngineStarts, result.moves));
+            }
+        } finally {
+            executor.shutdownNow();
+            releaseEngines();
+        }
+    }
+
+    // Plays one pairing over the given start numbers, both engines moving first, on a caller-owned
+    // executor and returns the results on their own; getStats() is not touched. TournamentWorker
+    // plays its shards this way, and merging the returned stats gives exactly what run() records.
+    public MatchupStats playShard(int matchup, List<Integer> startNumbers, ExecutorService executor)
+            throws InterruptedException {
+        CompletionService<GameResult> completion = new ExecutorCompletionService<>(executor);
+        for (int startNum : startNumbers) {
+            for (boolean firstEngineStarts : new boolean[]{true, false}) {
+                completion.submit(() -> playGame(matchup, startNum, firstEngineStarts));
+            }
+        }
+        MatchupStats shard = new MatchupStats(stats.get(matchup).firstEngine, stats.get(matchup).secondEngine);
+        for (int i = 0; i < 2 * startNumbers.size(); i++) {
+            try {
+                record(shard, completion.take().get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Game failed", e.getCause());
+            }
+        }
+        return shard;
+    }
+
+    void releaseEngines() {
+        synchronized (createdEngines) {
+            for (AIPlayer player : createdEngines) player.unregisterMetrics();
+            createdEngines.clear();
+        }
+    }
+
+    void record(GameResult result) {
+        record(stats.get(result.matchup), result);
+    }
+
+    static void record(MatchupStats matchupStats, GameResult result) {
+        matchupStats.recordGame(result.winner);
+        for (long[] move : result.moveStats) {
+            matchupStats.recordMove((int) move[0], move[1], move[2]);
+        }
+    }
+
+    private String engineName(GameResult result, int seat) {
+        return engines.get(pairings.get(result.matchup)[seat]).name;
+    }
+
+    String toCsv(GameResult r) {
+        return String.join(",", stats.get(r.matchup).getName(), String.valueOf(r.startNum),
+                engineName(r, r.firstEngineStarts ? 0 : 1),
+                r.winner < 0 ? "draw" : engineName(r, r.winner),
+                String.valueOf(r.scores[0]), String.valueOf(r.scores[1]), String.valueOf(r.moves.length()),
+                String.valueOf(r.nodes[0]), String.valueOf(r.nodes[1]),
+                String.valueOf(r.nanos[0]), String.valueOf(r.nanos[1]), r.moves.toString()) + "\n";
+    }
+
+    String toJson(GameResult r) {
+        return String.format(Locale.ROOT,
+                "{\"matchup\":\"%s\",\"start\":%d,\"firstMover\":\"%s\",\"winner\":\"%s\",\"scores\":[%d,%d]," +
+                        "\"plies\":%d,\"nodes\":[%d,%d],\"nanos\":[%d,%d],\"moves\":\"%s\"}%n",
+                stats.get(r.matchup).getName(), r.startNum, engineName(r, r.firstEngineStarts ? 0 : 1),
+                r.winner < 0 ? "draw" : engineName(r, r.winner), r.scores[0], r.scores[1], r.moves.length(),
+                r.nodes[0], r.nodes[1], r.nanos[0], r.nanos[1], r.moves);
+    }
+
+    static List<Integer> selectStartNumbers(String starts, long seed) {
+        List<Integer> all = GameLogic.getAllStartNumbers();
+        if (starts.equalsIgnoreCase("all")) return all;
+        int count = Integer.parseInt(starts);
+        if (count >= all.size()) return all;
+        List<Integer> shuffled = new ArrayList<>(all);
+        Collections.shuffle(shuffled, new Random(seed));
+        List<Integer> chosen = new ArrayList<>(shuffled.subList(0, count));
+        Collections.sort(chosen);
+        return chosen;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String engineList = DEFAULT_ENGINES;
+        String starts = "all";
+        long seed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String csvFile = null;
+        String jsonFile = null;
+        String recordFile = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--engines": engineList = args[++i]; break;
+                case "--starts": starts = args[++i]; break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--csv": csvFile = args[++i]; break;
+                case "--json": jsonFile = args[++i]; break;
+                case "--records": recordFile = args[++i]; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        List<EngineSpec> engines = new ArrayList<>();
+        for (String spec : engineList.split(",")) engines.add(EngineSpec.parse(spec));
+        if (engines.size() < 2) throw new IllegalArgumentException("A tournament needs at least two engines");
+        List<Integer> startNumbers = selectStartNumbers(starts, seed);
+
+        Tournament tournament = new Tournament(engines);
+        System.out.println("Engines: " + engines + ", start numbers: " + startNumbers.size() + ", threads: " + threads);
+        long startTime = System.nanoTime();
+        try (BufferedWriter csv = csvFile == null ? null : Files.newBufferedWriter(Paths.get(csvFile));
+             BufferedWriter json = jsonFile == null ? null : Files.newBufferedWriter(Paths.get(jsonFile));
+             GameRecordLog records = recordFile == null ? null : GameRecordLog.open(Paths.get(recordFile))) {
+            tournament.setRecordLog(records);
+            tournament.run(startNumbers, threads, csv, json);
+        }
+        long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+
+        long games = 0;
+        for (MatchupStats matchupStats : tournament.getStats()) {
+            games += matchupStats.games;
+            System.out.println();
+            System.out.print(matchupStats.report());
+        }
+        System.out.printf(Locale.ROOT, "%n%d games in %d ms (%.0f games/s)%n",
+                games, elapsedMs, games * 1000.0 / Math.max(1, elapsedMs));
+    }
+}
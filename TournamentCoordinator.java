@@ -0,0 +1,367 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs a Tournament across several worker JVMs and merges their results. The (pairing x start number)
+// space is cut into shards of --shard-size start numbers of one pairing; each shard goes to a
+// TournamentWorker over a loopback socket and comes back as a MatchupStats, which is merged with add(),
+// so the totals are exactly those of a single-process run. A worker that disconnects, or sends no
+// heartbeat for --heartbeat-timeout-ms, is killed and its shard goes back to the front of the queue.
+// Only finished shards are merged, so no game is ever counted twice.
+// Usage: java TournamentCoordinator [--engines ALPHA_BETA:6,ALPHA_BETA:2,EXACT] [--starts all|N] [--seed S]
+//                                   [--workers 2] [--worker-threads T] [--shard-size 64] [--port 0]
+//                                   [--heartbeat-timeout-ms 15000] [--max-restarts R]
+//                                   [--halt-first-worker-after N] [--verify]
+// The coordinator launches --workers JVMs on its own classpath and replaces those that die, up to
+// --max-restarts (default --workers) times. With --workers 0 it only listens on --port and waits for
+// workers started by hand: java TournamentWorker --connect 127.0.0.1:PORT [--threads T].
+// --halt-first-worker-after makes the first launched worker die after that many shards, and --verify
+// plays the whole tournament again in this process and checks every count against the merged one.
+public class TournamentCoordinator implements AutoCloseable {
+    static final int DEFAULT_SHARD_SIZE = 64;
+    static final int DEFAULT_HEARTBEAT_TIMEOUT_MS = 15_000;
+
+    static class Shard {
+        final int id;
+        final int matchup;
+        final List<Integer> startNumbers;
+
+        Shard(int id, int matchup, List<Integer> startNumbers) {
+            this.id = id;
+            this.matchup = matchup;
+            this.startNumbers = startNumbers;
+        }
+    }
+
+    private final String engineList;
+    // Supplies the pairings and names; its stats receive the merged shards.
+    private final Tournament tournament;
+    private final List<Shard> shards = new ArrayList<>();
+    private final BlockingDeque<Shard> queue = new LinkedBlockingDeque<>();
+    private final boolean[] completed;
+    private int completedCount;
+    private final ServerSocket server;
+    private final int heartbeatTimeoutMs;
+    private final List<Process> workers = new ArrayList<>();
+    private final AtomicInteger connectedWorkers = new AtomicInteger();
+    private final AtomicInteger lostWorkers = new AtomicInteger();
+    private final AtomicInteger reassignedShards = new AtomicInteger();
+    private int workerThreads = 1;
+    private int restartsLeft;
+    private int restarts;
+    private int haltFirstWorkerAfter = -1;
+    private volatile boolean closed;
+
+    public TournamentCoordinator(List<Tournament.EngineSpec> engines, List<Integer> startNumbers, int shardSize,
+                                 int port, int heartbeatTimeoutMs) throws IOException {
+        if (shardSize <= 0) throw new IllegalArgumentException("Shard size must be positive");
+        StringBuilder list = new StringBuilder();
+        for (Tournament.EngineSpec engine : engines) list.append(list.length() == 0 ? "" : ",").append(engine.name);
+        this.engineList = list.toString();
+        this.tournament = new Tournament(engines);
+        this.heartbeatTimeoutMs = heartbeatTimeoutMs;
+        for (int matchup = 0; matchup < tournament.pairings.size(); matchup++) {
+            for (int from = 0; from < startNumbers.size(); from += shardSize) {
+                List<Integer> slice = startNumbers.subList(from, Math.min(startNumbers.size(), from + shardSize));
+                shards.add(new Shard(shards.size(), matchup, new ArrayList<>(slice)));
+            }
+        }
+        queue.addAll(shards);
+        completed = new boolean[shards.size()];
+
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "tournament-coordinator-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() { return server.getLocalPort(); }
+    public int getShardCount() { return shards.size(); }
+    public List<MatchupStats> getStats() { return tournament.getStats(); }
+    public int getLostWorkers() { return lostWorkers.get(); }
+    public int getReassignedShards() { return reassignedShards.get(); }
+    public synchronized int getRestarts() { return restarts; }
+
+    public synchronized void launchWorkers(int count, int threadsPerWorker, int maxRestarts, int haltFirstAfter)
+            throws IOException {
+        workerThreads = threadsPerWorker;
+        restartsLeft = maxRestarts;
+        haltFirstWorkerAfter = haltFirstAfter;
+        for (int i = 0; i < count; i++) launchWorker();
+    }
+
+    private synchronized void launchWorker() throws IOException {
+        List<String> command = new ArrayList<>(List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), "TournamentWorker",
+                "--connect", InetAddress.getLoopbackAddress().getHostAddress() + ":" + getPort(),
+                "--threads", String.valueOf(workerThreads)));
+        if (workers.isEmpty() && haltFirstWorkerAfter >= 0) {
+            command.add("--halt-after-shards");
+            command.add(String.valueOf(haltFirstWorkerAfter));
+        }
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        workers.add(process);
+        process.onExit().thenRun(() -> workerExited(process));
+    }
+
+    // Replaces a launched worker that died with shards left; one that finished normally is left alone.
+    private void workerExited(Process process) {
+        synchronized (this) {
+            if (closed || isFinished() || process.exitValue() == 0) {
+                notifyAll();
+                return;
+            }
+            if (restartsLeft > 0) {
+                restartsLeft--;
+                restarts++;
+                try {
+                    launchWorker();
+                } catch (IOException e) {
+                    System.err.println("Cannot start a replacement worker: " + e.getMessage());
+                }
+            }
+            notifyAll();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                Thread thread = new Thread(() -> serveWorker(socket), "tournament-coordinator-worker");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (!closed) System.err.println("Accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serveWorker(Socket socket) {
+        long pid = -1;
+        Shard current = null;
+        boolean counted = false;
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            s.setSoTimeout(heartbeatTimeoutMs);
+            s.setTcpNoDelay(true);
+            int version = in.readInt();
+            if (version != TournamentWorker.PROTOCOL_VERSION) throw new IOException("Protocol version " + version);
+            pid = in.readLong();
+            out.writeUTF(engineList);
+            out.flush();
+            connectedWorkers.incrementAndGet();
+            counted = true;
+
+            while ((current = nextShard()) != null) {
+                out.writeInt(current.id);
+                out.writeInt(current.matchup);
+                out.writeInt(current.startNumbers.size());
+                for (int startNum : current.startNumbers) out.writeInt(startNum);
+                out.flush();
+
+                byte tag;
+                while ((tag = in.readByte()) == TournamentWorker.HEARTBEAT) { }
+                if (tag != TournamentWorker.RESULT) throw new IOException("Unexpected message " + tag);
+                int id = in.readInt();
+                if (id != current.id) throw new IOException("Result for shard " + id + ", expected " + current.id);
+                MatchupStats stats = tournament.getStats().get(current.matchup);
+                complete(current, MatchupStats.readFrom(in, stats.firstEngine, stats.secondEngine));
+                current = null;
+            }
+            out.writeInt(TournamentWorker.NO_MORE_SHARDS);
+            out.flush();
+        } catch (IOException e) {
+            if (closed) return;
+            lostWorkers.incrementAndGet();
+            if (current != null) {
+                queue.addFirst(current);
+                reassignedShards.incrementAndGet();
+            }
+            System.err.println("Lost worker " + pid + " (" + e + ")"
+                    + (current != null ? ", shard " + current.id + " requeued" : ""));
+            if (pid > 0) ProcessHandle.of(pid).ifPresent(ProcessHandle::destroyForcibly);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (counted) connectedWorkers.decrementAndGet();
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    // null once every shard has finished. Idle workers keep polling, since a shard can still come back
+    // from a worker that dies.
+    private Shard nextShard() throws InterruptedException {
+        while (!closed) {
+            Shard shard = queue.pollFirst(200, TimeUnit.MILLISECONDS);
+            if (shard != null) return shard;
+            synchronized (this) {
+                if (isFinished()) return null;
+            }
+        }
+        return null;
+    }
+
+    private synchronized void complete(Shard shard, MatchupStats result) {
+        if (completed[shard.id]) return;
+        completed[shard.id] = true;
+        completedCount++;
+        tournament.getStats().get(shard.matchup).add(result);
+        notifyAll();
+    }
+
+    private boolean isFinished() { return completedCount == shards.size(); }
+
+    // Waits for every shard. Fails when launched workers are all gone with shards left and no restarts
+    // remain; with only hand-started workers it waits for more to connect.
+    public synchronized void awaitCompletion() throws InterruptedException {
+        while (!isFinished()) {
+            boolean anyAlive = false;
+            for (Process process : workers) anyAlive |= process.isAlive();
+            if (!workers.isEmpty() && !anyAlive && connectedWorkers.get() == 0 && restartsLeft == 0) {
+                throw new IllegalStateException("All workers died with " + (shards.size() - completedCount)
+                        + " of " + shards.size() + " shards left");
+            }
+            wait(1000);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        List<Process> launched;
+        synchronized (this) {
+            closed = true;
+            launched = new ArrayList<>(workers);
+            notifyAll();
+            // Lets connected workers, hand-started ones included, receive NO_MORE_SHARDS before exit.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            try {
+                while (connectedWorkers.get() > 0 && System.nanoTime() < deadline) wait(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        server.close();
+        for (Process process : launched) {
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) process.destroyForcibly();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static String differences(List<MatchupStats> expected, List<MatchupStats> actual) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < expected.size(); i++) {
+            MatchupStats e = expected.get(i);
+            MatchupStats a = actual.get(i);
+            long[] want = {e.games, e.firstWins, e.secondWins, e.draws, e.moves[0], e.moves[1], e.nodes[0], e.nodes[1],
+                    e.latency[0].getCount(), e.latency[1].getCount()};
+            long[] got = {a.games, a.firstWins, a.secondWins, a.draws, a.moves[0], a.moves[1], a.nodes[0], a.nodes[1],
+                    a.latency[0].getCount(), a.latency[1].getCount()};
+            String[] names = {"games", "first wins", "second wins", "draws", "first moves", "second moves",
+                    "first nodes", "second nodes", "first latencies", "second latencies"};
+            for (int k = 0; k < want.length; k++) {
+                if (want[k] != got[k]) {
+                    sb.append(String.format(Locale.ROOT, "%s %s: expected %d, merged %d%n",
+                            e.getName(), names[k], want[k], got[k]));
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String engineList = Tournament.DEFAULT_ENGINES;
+        String starts = "all";
+        long seed = 1;
+        int workerCount = 2;
+        int workerThreads = -1;
+        int shardSize = DEFAULT_SHARD_SIZE;
+        int port = 0;
+        int heartbeatTimeoutMs = DEFAULT_HEARTBEAT_TIMEOUT_MS;
+        int maxRestarts = -1;
+        int haltFirstWorkerAfter = -1;
+        boolean verify = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--engines": engineList = args[++i]; break;
+                case "--starts": starts = args[++i]; break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--workers": workerCount = Integer.parseInt(args[++i]); break;
+                case "--worker-threads": workerThreads = Integer.parseInt(args[++i]); break;
+                case "--shard-size": shardSize = Integer.parseInt(args[++i]); break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--heartbeat-timeout-ms": heartbeatTimeoutMs = Integer.parseInt(args[++i]); break;
+                case "--max-restarts": maxRestarts = Integer.parseInt(args[++i]); break;
+                case "--halt-first-worker-after": haltFirstWorkerAfter = Integer.parseInt(args[++i]); break;
+                case "--verify": verify = true; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        if (workerThreads <= 0) workerThreads = Math.max(1, cores / Math.max(1, workerCount));
+        if (maxRestarts < 0) maxRestarts = workerCount;
+
+        List<Tournament.EngineSpec> engines = new ArrayList<>();
+        for (String spec : engineList.split(",")) engines.add(Tournament.EngineSpec.parse(spec));
+        if (engines.size() < 2) throw new IllegalArgumentException("A tournament needs at least two engines");
+        List<Integer> startNumbers = Tournament.selectStartNumbers(starts, seed);
+
+        long startTime = System.nanoTime();
+        try (TournamentCoordinator coordinator =
+                     new TournamentCoordinator(engines, startNumbers, shardSize, port, heartbeatTimeoutMs)) {
+            System.out.println("Engines: " + engines + ", start numbers: " + startNumbers.size() + ", shards: "
+                    + coordinator.getShardCount() + ", port: " + coordinator.getPort());
+            if (workerCount > 0) {
+                System.out.println("Launching " + workerCount + " workers with " + workerThreads + " threads each");
+                coordinator.launchWorkers(workerCount, workerThreads, maxRestarts, haltFirstWorkerAfter);
+            } else {
+                System.out.println("Waiting for workers: java TournamentWorker --connect 127.0.0.1:"
+                        + coordinator.getPort());
+            }
+            coordinator.awaitCompletion();
+            long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+
+            long games = 0;
+            for (MatchupStats matchupStats : coordinator.getStats()) {
+                games += matchupStats.games;
+                System.out.println();
+                System.out.print(matchupStats.report());
+            }
+            System.out.printf(Locale.ROOT, "%n%d games in %d ms (%.0f games/s), %d shards, %d workers lost, " +
+                            "%d shards reassigned, %d workers restarted%n",
+                    games, elapsedMs, games * 1000.0 / Math.max(1, elapsedMs), coordinator.getShardCount(),
+                    coordinator.getLostWorkers(), coordinator.getReassignedShards(), coordinator.getRestarts());
+
+            if (verify) {
+                Tournament local = new Tournament(engines);
+                local.run(startNumbers, cores, null, null);
+                String differences = differences(local.getStats(), coordinator.getStats());
+                System.out.println(differences.isEmpty()
+                        ? "Verify: merged results match a single-process run exactly"
+                        : "Verify FAILED:\n" + differences);
+                if (!differences.isEmpty()) System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// One worker JVM of a TournamentCoordinator. It connects to the coordinator, receives the engine list,
+// then plays shards until told there are none left. Wire format, all DataOutput:
+//   worker -> coordinator   int PROTOCOL_VERSION, long pid
+//   coordinator -> worker   UTF engine list, then per shard: int id, int matchup, int n, n x int start
+//                           (id NO_MORE_SHARDS ends the session)
+//   worker -> coordinator   byte HEARTBEAT every HEARTBEAT_INTERVAL_MS while a shard runs, then
+//                           byte RESULT, int id, MatchupStats.writeTo
+// Usage: java TournamentWorker --connect 127.0.0.1:PORT [--threads T] [--connect-timeout-ms 30000]
+//                              [--halt-after-shards N]
+// --halt-after-shards kills the JVM once shard N+1 has been handed to it, for testing the coordinator's
+// recovery.
+public class TournamentWorker {
+    static final int PROTOCOL_VERSION = 1;
+    static final int NO_MORE_SHARDS = -1;
+    static final byte HEARTBEAT = 'H';
+    static final byte RESULT = 'R';
+    static final int HEARTBEAT_INTERVAL_MS = 1000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String connect = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long connectTimeoutMs = 30_000;
+        int haltAfterShards = -1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--connect": connect = args[++i]; break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--connect-timeout-ms": connectTimeoutMs = Long.parseLong(args[++i]); break;
+                case "--halt-after-shards": haltAfterShards = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (connect == null) throw new IllegalArgumentException("--connect host:port is required");
+        int colon = connect.lastIndexOf(':');
+        InetSocketAddress address = new InetSocketAddress(connect.substring(0, colon),
+                Integer.parseInt(connect.substring(colon + 1)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "tournament-worker-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (Socket socket = connect(address, connectTimeoutMs);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            socket.setTcpNoDelay(true);
+            out.writeInt(PROTOCOL_VERSION);
+            out.writeLong(ProcessHandle.current().pid());
+            out.flush();
+
+            List<Tournament.EngineSpec> engines = new ArrayList<>();
+            for (String spec : in.readUTF().split(",")) engines.add(Tournament.EngineSpec.parse(spec));
+            Tournament tournament = new Tournament(engines);
+
+            int shardsDone = 0;
+            while (true) {
+                int id = in.readInt();
+                if (id == NO_MORE_SHARDS) break;
+                int matchup = in.readInt();
+                List<Integer> startNumbers = new ArrayList<>();
+                for (int i = in.readInt(); i > 0; i--) startNumbers.add(in.readInt());
+                if (shardsDone == haltAfterShards) {
+                    System.err.println("Worker " + ProcessHandle.current().pid() + " halting as requested");
+                    Runtime.getRuntime().halt(3);
+                }
+
+                ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(() -> send(out, HEARTBEAT),
+                        HEARTBEAT_INTERVAL_MS, HEARTBEAT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                MatchupStats result;
+                try {
+                    result = tournament.playShard(matchup, startNumbers, executor);
+                } finally {
+                    heartbeat.cancel(false);
+                }
+                synchronized (out) {
+                    out.writeByte(RESULT);
+                    out.writeInt(id);
+                    result.writeTo(out);
+                    out.flush();
+                }
+                shardsDone++;
+            }
+            tournament.releaseEngines();
+        } finally {
+            heartbeats.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    // Workers started by hand may come up before the coordinator listens.
+    private static Socket connect(InetSocketAddress address, long timeoutMs) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000;
+        while (true) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(address);
+                return socket;
+            } catch (ConnectException e) {
+                socket.close();
+                if (System.nanoTime() > deadline) throw e;
+                Thread.sleep(200);
+            }
+        }
+    }
+
+    private static void send(DataOutputStream out, byte tag) {
+        try {
+            synchronized (out) {
+                out.writeByte(tag);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The coordinator is gone; the main thread finds out on its next read or write.
+        }
+    }
+}
@@ -0,0 +1,15 @@
+// What the search needs from a transposition table. Keys come from TranspositionTable.key and values
+// use its NO_VALUE / bound conventions.
+public interface TranspositionStore {
+    // The stored value if it is deep enough and its bound decides the window, otherwise NO_VALUE.
+    int probe(long key, int depth, int alpha, int beta);
+
+    // Divisor that was best the last time this position was searched, or 0 if unknown.
+    int bestMove(long key);
+
+    void store(long key, int depth, int value, int alpha, int beta, int bestMove);
+
+    long size();
+
+    void clear();
+}
@@ -0,0 +1,84 @@
+import java.util.Arrays;
+
+public class TranspositionTable implements TranspositionStore {
+    static final int NO_VALUE = Integer.MIN_VALUE + 1;
+    static final byte EXACT = 0;
+    static final byte LOWER = 1;
+    static final byte UPPER = 2;
+
+    final long[] keys;
+    final int[] values;
+    final byte[] depths;
+    final byte[] flags;
+    final byte[] moves;
+    final int mask;
+    final int shift;
+
+    public TranspositionTable(int requestedEntries) {
+        if (requestedEntries <= 0) throw new IllegalArgumentException("Table size must be positive");
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, requestedEntries - 1));
+        int size = 1 << bits;
+        this.keys = new long[size];
+        this.values = new int[size];
+        this.depths = new byte[size];
+        this.flags = new byte[size];
+        this.moves = new byte[size];
+        this.mask = size - 1;
+        this.shift = 64 - Math.max(1, bits);
+    }
+
+    // Scores only ever depend on the score difference, so two positions with the same number,
+    // difference, side to move and search role are interchangeable. Bit 0 marks a used slot.
+    static long key(long state, boolean isMaximizingPlayer) {
+        int diff = PackedState.scoreDiff(state);
+        return ((long) PackedState.currentNum(state) << 32)
+                | ((long) (diff & 0x0FFFFFFF) << 3)
+                | (PackedState.isPlayerTurn(state) ? 4 : 0)
+                | (isMaximizingPlayer ? 2 : 0)
+                | 1;
+    }
+
+    int index(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift) & mask;
+    }
+
+    @Override
+    public int probe(long key, int depth, int alpha, int beta) {
+        int i = index(key);
+        if (keys[i] == key && depths[i] >= depth) {
+            int value = values[i];
+            byte flag = flags[i];
+            if (flag == EXACT || (flag == LOWER && value >= beta) || (flag == UPPER && value <= alpha)) {
+                return value;
+            }
+        }
+        return NO_VALUE;
+    }
+
+    @Override
+    public int bestMove(long key) {
+        int i = index(key);
+        return keys[i] == key ? moves[i] : 0;
+    }
+
+    // Depth-preferred: a slot is only overwritten by the same position or a search at least as deep.
+    @Override
+    public void store(long key, int depth, int value, int alpha, int beta, int bestMove) {
+        int i = index(key);
+        if (keys[i] != key && keys[i] != 0 && depths[i] > depth) return;
+        keys[i] = key;
+        values[i] = value;
+        depths[i] = (byte) Math.min(depth, Byte.MAX_VALUE);
+        moves[i] = (byte) bestMove;
+        if (value <= alpha) flags[i] = UPPER;
+        else if (value >= beta) flags[i] = LOWER;
+        else flags[i] = EXACT;
+    }
+
+    @Override public long size() { return keys.length; }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0L);
+    }
+}
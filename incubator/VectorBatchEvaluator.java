@@ -0,0 +1,45 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// BatchEvaluator on SIMD lanes of the preferred width, the same branch-free terms with masks and blends;
+// the tail shorter than a vector goes through the scalar kernel. Lives apart from the other sources
+// because it needs the incubator module to compile and to run; BatchEvaluator.create() loads it by name.
+//   javac --add-modules jdk.incubator.vector -cp . -d . incubator/VectorBatchEvaluator.java
+public class VectorBatchEvaluator extends BatchEvaluator {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public String getName() { return "vector " + SPECIES.length() + "x int"; }
+
+    @Override
+    public void evaluate(int[] nums, int[] diffs, int[] out, int count) {
+        IntVector zero = IntVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            IntVector num = IntVector.fromArray(SPECIES, nums, i);
+            IntVector diff = IntVector.fromArray(SPECIES, diffs, i);
+
+            VectorMask<Integer> canDiv2 = num.and(1).compare(VectorOperators.EQ, 0);
+            VectorMask<Integer> canDiv3 = num.mul(INVERSE_OF_3).lanewise(VectorOperators.XOR, Integer.MIN_VALUE)
+                    .compare(VectorOperators.LE, THIRD_OF_RANGE ^ Integer.MIN_VALUE);
+            VectorMask<Integer> over = num.compare(VectorOperators.LE, GameLogic.GAME_END_THRESHOLD)
+                    .or(canDiv2.or(canDiv3).not());
+            VectorMask<Integer> negative = diff.compare(VectorOperators.LT, 0);
+            VectorMask<Integer> positive = diff.compare(VectorOperators.GT, 0);
+
+            IntVector scaled = num.neg().add(END_PROXIMITY_LIMIT).max(0).mul(205);
+            IntVector proxFactor = zero.blend(scaled.lanewise(VectorOperators.ASHR, 10).neg(), negative)
+                    .blend(scaled.lanewise(VectorOperators.ASHR, 11), positive);
+            IntVector bonus = zero.blend(3, canDiv2.and(canDiv3))
+                    .add(zero.blend(1, canDiv3))
+                    .sub(zero.blend(1, canDiv2.andNot(canDiv3)));
+            IntVector heuristic = diff.add(proxFactor).add(bonus);
+            IntVector terminal = diff.add(zero.blend(WIN_SCORE, positive)).sub(zero.blend(WIN_SCORE, negative));
+            heuristic.blend(terminal, over).intoArray(out, i);
+        }
+        for (; i < count; i++) out[i] = evaluate(nums[i], diffs[i]);
+    }
+}
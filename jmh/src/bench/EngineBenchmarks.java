@@ -0,0 +1,338 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// JMH version of EngineBenchmark, with the same operations, start numbers and parameters; EngineBenchmark
+// stays as the JDK-only harness. JMH does not accept benchmarks in the default package, and a named
+// package cannot refer to the engine's default-package classes, so the engine is reached through
+// static final MethodHandles, which the JIT inlines like direct calls.
+//   mvn -B -Pjmh package
+//   java -jar target/benchmarks.jar -prof gc -rf json -rff jmh-result.json
+// -prof gc adds gc.alloc.rate.norm, the bytes allocated per operation. Benchmark and parameter names are
+// stable, so the JSON of two commits can be diffed. One group: java -jar target/benchmarks.jar findBestMove
+// -p algorithm=MINIMAX,ALPHA_BETA. The vector batch kernel: -p kernel=scalar,vector after compiling
+// incubator/ as described in BatchEvaluator, with --jvmArgs "--add-modules jdk.incubator.vector".
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmarks {
+    static final int EVAL_BATCH = 1024;
+
+    static final MethodHandle NEW_GAME_STATE = constructor("GameState", int.class, boolean.class);
+    static final MethodHandle CLONE = method("GameState", "clone");
+    static final MethodHandle MAKE_MOVE = method("GameState", "makeMove", int.class);
+    static final MethodHandle CURRENT_NUM = method("GameState", "getCurrentNum");
+    static final MethodHandle GET_VALID_MOVES = method("GameLogic", "getValidMoves", type("GameState"));
+    static final MethodHandle PACK = method("PackedState", "of", type("GameState"));
+    static final MethodHandle PACKED_MAKE_MOVE = method("PackedState", "makeMove", long.class, int.class);
+    static final MethodHandle PACKED_VALID_MOVES = method("PackedState", "validMoves", long.class);
+    static final MethodHandle EVALUATE = method("AIPlayer", "evaluate", long.class);
+    static final MethodHandle SAMPLE_POSITIONS = method("BatchEvaluator", "samplePositions", int.class, long.class);
+    static final MethodHandle CURRENT_NUM_OF = method("PackedState", "currentNum", long.class);
+    static final MethodHandle SCORE_DIFF_OF = method("PackedState", "scoreDiff", long.class);
+    static final MethodHandle NEW_SCALAR_KERNEL = constructor("BatchEvaluator");
+    static final MethodHandle CREATE_KERNEL = method("BatchEvaluator", "create");
+    static final MethodHandle KERNEL_NAME = method("BatchEvaluator", "getName");
+    static final MethodHandle BATCH_EVALUATE = method("BatchEvaluator", "evaluate",
+            int[].class, int[].class, int[].class, int.class);
+    static final MethodHandle NEW_AI_PLAYER = constructor("AIPlayer", type("AIPlayer$Algorithm"), int.class, int.class);
+    static final MethodHandle FIND_BEST_MOVE = method("AIPlayer", "findBestMove", type("GameState"));
+    static final MethodHandle DIVISOR = method("Move", "getDivisor");
+    static final MethodHandle NEW_LARGE_STATE = constructor("LargeGameState", long.class, boolean.class);
+    static final MethodHandle LARGE_OF = method("LargeGameState", "of", type("GameState"));
+    static final MethodHandle LARGE_CLONE = method("LargeGameState", "clone");
+    static final MethodHandle LARGE_IS_MOVE_VALID = method("LargeGameState", "isMoveValid", int.class);
+    static final MethodHandle LARGE_MAKE_MOVE = method("LargeGameState", "makeMove", int.class);
+    static final MethodHandle LARGE_THREES = method("LargeGameState", "getThrees");
+    static final MethodHandle NEW_LARGE_PLAYER = constructor("LargeNumberPlayer", type("AIPlayer$Algorithm"),
+            int.class, int.class);
+    static final MethodHandle LARGE_FIND_BEST_MOVE = method("LargeNumberPlayer", "findBestMove", type("LargeGameState"));
+    static final MethodHandle LARGE_RESET = method("LargeNumberPlayer", "resetGameStats");
+
+    static final int[] START_NUMBERS = (int[]) staticField("EngineBenchmark", "START_NUMBERS");
+    static final long[] LARGE_START_NUMBERS = (long[]) staticField("EngineBenchmark", "LARGE_START_NUMBERS");
+    static final int LARGE_TT_ENTRIES = (int) staticField("EngineBenchmark", "LARGE_TT_ENTRIES");
+
+    // Every operation takes the next of the fixed start positions, as EngineBenchmark does.
+    @State(Scope.Thread)
+    public static class Positions {
+        final Object[] states = new Object[START_NUMBERS.length];
+        final long[] packed = new long[START_NUMBERS.length];
+        final Object[] large = new Object[START_NUMBERS.length];
+        final Object[] huge = new Object[LARGE_START_NUMBERS.length];
+        int next;
+
+        @Setup
+        public void setUp() throws Throwable {
+            for (int i = 0; i < states.length; i++) {
+                states[i] = NEW_GAME_STATE.invoke(START_NUMBERS[i], false);
+                packed[i] = (long) PACK.invoke(states[i]);
+                large[i] = LARGE_OF.invoke(states[i]);
+            }
+            for (int i = 0; i < huge.length; i++) huge[i] = NEW_LARGE_STATE.invoke(LARGE_START_NUMBERS[i], false);
+        }
+
+        int next(int length) {
+            int i = next;
+            next = i + 1 == length ? 0 : i + 1;
+            return i;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Batch {
+        @Param({"scalar"})
+        public String kernel;
+
+        final long[] states = new long[EVAL_BATCH];
+        final int[] nums = new int[EVAL_BATCH];
+        final int[] diffs = new int[EVAL_BATCH];
+        final int[] scores = new int[EVAL_BATCH];
+        Object evaluator;
+
+        @Setup
+        public void setUp() throws Throwable {
+            long[] sampled = (long[]) SAMPLE_POSITIONS.invoke(EVAL_BATCH, 1L);
+            System.arraycopy(sampled, 0, states, 0, EVAL_BATCH);
+            for (int k = 0; k < EVAL_BATCH; k++) {
+                nums[k] = (int) CURRENT_NUM_OF.invoke(states[k]);
+                diffs[k] = (int) SCORE_DIFF_OF.invoke(states[k]);
+            }
+            evaluator = kernel.equals("scalar") ? NEW_SCALAR_KERNEL.invoke() : CREATE_KERNEL.invoke();
+            String name = (String) KERNEL_NAME.invoke(evaluator);
+            if (!name.equals(kernel)) throw new IllegalStateException("Kernel " + kernel + " not available, got " + name);
+        }
+    }
+
+    // No transposition table, as in EngineBenchmark, so every operation searches the whole tree.
+    @State(Scope.Thread)
+    public static class Search {
+        @Param({"MINIMAX", "ALPHA_BETA", "PVS", "MTDF"})
+        public String algorithm;
+
+        @Param({"4", "6", "8", "10", "12"})
+        public int depth;
+
+        Object player;
+
+        @Setup
+        public void setUp() throws Throwable {
+            player = NEW_AI_PLAYER.invoke(algorithm(algorithm), depth, 0);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ExactSearch {
+        Object player;
+
+        @Setup
+        public void setUp() throws Throwable {
+            player = NEW_AI_PLAYER.invoke(algorithm("EXACT"), 0, 0);
+        }
+    }
+
+    // MCTS depths are playout budgets in thousands.
+    @State(Scope.Thread)
+    public static class MonteCarlo {
+        @Param({"1", "4"})
+        public int depth;
+
+        Object player;
+
+        @Setup
+        public void setUp() throws Throwable {
+            player = NEW_AI_PLAYER.invoke(algorithm("MCTS"), depth, 0);
+        }
+    }
+
+    // The lattice engine on the int start numbers, without a table so its trees match Search's.
+    @State(Scope.Thread)
+    public static class LargeSearch {
+        @Param({"4", "6", "8", "10", "12"})
+        public int depth;
+
+        Object player;
+
+        @Setup
+        public void setUp() throws Throwable {
+            player = NEW_LARGE_PLAYER.invoke(algorithm("ALPHA_BETA"), depth, 0);
+        }
+    }
+
+    // Starts around 10^17-10^18 with a small table, cleared before every search.
+    @State(Scope.Thread)
+    public static class HugeSearch {
+        @Param({"12", "24", "48"})
+        public int hugeDepth;
+
+        Object player;
+
+        @Setup
+        public void setUp() throws Throwable {
+            player = NEW_LARGE_PLAYER.invoke(algorithm("ALPHA_BETA"), hugeDepth, LARGE_TT_ENTRIES);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class HugeExact {
+        Object player;
+
+        @Setup
+        public void setUp() throws Throwable {
+            player = NEW_LARGE_PLAYER.invoke(algorithm("EXACT"), 0, 0);
+        }
+    }
+
+    @Benchmark
+    public int gameStateClone(Positions p) throws Throwable {
+        return (int) CURRENT_NUM.invoke(CLONE.invoke(p.states[p.next(p.states.length)]));
+    }
+
+    @Benchmark
+    public int gameStateMakeMove(Positions p) throws Throwable {
+        Object state = CLONE.invoke(p.states[p.next(p.states.length)]);
+        boolean moved = (boolean) MAKE_MOVE.invoke(state, 2);
+        return (int) CURRENT_NUM.invoke(state) + (moved ? 1 : 0);
+    }
+
+    @Benchmark
+    public int gameLogicGetValidMoves(Positions p) throws Throwable {
+        return ((List<?>) GET_VALID_MOVES.invoke(p.states[p.next(p.states.length)])).size();
+    }
+
+    @Benchmark
+    public long packedStateMakeMove(Positions p) throws Throwable {
+        return (long) PACKED_MAKE_MOVE.invoke(p.packed[p.next(p.packed.length)], 2);
+    }
+
+    @Benchmark
+    public int packedStateValidMoves(Positions p) throws Throwable {
+        return (int) PACKED_VALID_MOVES.invoke(p.packed[p.next(p.packed.length)]);
+    }
+
+    @Benchmark
+    public int evaluate(Positions p) throws Throwable {
+        int i = p.next(p.packed.length);
+        return (int) EVALUATE.invoke(p.packed[i] + (i & 0xFF));
+    }
+
+    // One operation is a whole batch of EVAL_BATCH positions.
+    @Benchmark
+    public int evaluateBatch(Batch b) throws Throwable {
+        for (int k = 0; k < EVAL_BATCH; k++) b.scores[k] = (int) EVALUATE.invoke(b.states[k]);
+        return b.scores[EVAL_BATCH - 1];
+    }
+
+    @Benchmark
+    public int batchEvaluatorEvaluate(Batch b) throws Throwable {
+        BATCH_EVALUATE.invoke(b.evaluator, b.nums, b.diffs, b.scores, EVAL_BATCH);
+        return b.scores[EVAL_BATCH - 1];
+    }
+
+    @Benchmark
+    public int findBestMove(Search s, Positions p) throws Throwable {
+        return (int) DIVISOR.invoke(FIND_BEST_MOVE.invoke(s.player, p.states[p.next(p.states.length)]));
+    }
+
+    @Benchmark
+    public int findBestMoveExact(ExactSearch s, Positions p) throws Throwable {
+        return (int) DIVISOR.invoke(FIND_BEST_MOVE.invoke(s.player, p.states[p.next(p.states.length)]));
+    }
+
+    @Benchmark
+    public int findBestMoveMcts(MonteCarlo s, Positions p) throws Throwable {
+        return (int) DIVISOR.invoke(FIND_BEST_MOVE.invoke(s.player, p.states[p.next(p.states.length)]));
+    }
+
+    @Benchmark
+    public int largeGameStateNew(Positions p) throws Throwable {
+        int i = p.next(LARGE_START_NUMBERS.length);
+        return (int) LARGE_THREES.invoke(NEW_LARGE_STATE.invoke(LARGE_START_NUMBERS[i], false));
+    }
+
+    @Benchmark
+    public int largeGameStateMakeMove(Positions p) throws Throwable {
+        Object state = LARGE_CLONE.invoke(p.huge[p.next(p.huge.length)]);
+        boolean moved = (boolean) LARGE_MAKE_MOVE.invoke(state, (boolean) LARGE_IS_MOVE_VALID.invoke(state, 3) ? 3 : 2);
+        return (int) LARGE_THREES.invoke(state) + (moved ? 1 : 0);
+    }
+
+    @Benchmark
+    public int largeFindBestMove(LargeSearch s, Positions p) throws Throwable {
+        return (int) DIVISOR.invoke(LARGE_FIND_BEST_MOVE.invoke(s.player, p.large[p.next(p.large.length)]));
+    }
+
+    @Benchmark
+    public int largeFindBestMoveHuge(HugeSearch s, Positions p) throws Throwable {
+        LARGE_RESET.invoke(s.player);
+        return (int) DIVISOR.invoke(LARGE_FIND_BEST_MOVE.invoke(s.player, p.huge[p.next(p.huge.length)]));
+    }
+
+    @Benchmark
+    public int largeFindBestMoveHugeExact(HugeExact s, Positions p) throws Throwable {
+        return (int) DIVISOR.invoke(LARGE_FIND_BEST_MOVE.invoke(s.player, p.huge[p.next(p.huge.length)]));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object algorithm(String name) {
+        return Enum.valueOf((Class) type("AIPlayer$Algorithm"), name);
+    }
+
+    static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Engine class " + name + " is not on the class path", e);
+        }
+    }
+
+    static MethodHandle method(String className, String name, Class<?>... parameters) {
+        try {
+            Method method = type(className).getDeclaredMethod(name, parameters);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No method " + className + "." + name, e);
+        }
+    }
+
+    static MethodHandle constructor(String className, Class<?>... parameters) {
+        try {
+            Constructor<?> constructor = type(className).getDeclaredConstructor(parameters);
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No constructor for " + className, e);
+        }
+    }
+
+    static Object staticField(String className, String name) {
+        try {
+            Field field = type(className).getDeclaredField(name);
+            field.setAccessible(true);
+            return field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No field " + className + "." + name, e);
+        }
+    }
+}